@@ -1,28 +1,41 @@
 package Smart_City_Route;
 
-public class AVLTree {
+import java.util.Arrays;
+
+public class AVLTree implements LocationIndex {
 private Node root;
+    private int size;
+    // Built on the first getNameIndex() call and kept up to date from then
+    // on, so trees nobody searches by name do not pay for it
+    private NameIndex nameIndex;
     
     private class Node {
         int locationId;
         String locationName;
         Node left, right;
         int height;
+        int count; // locations in this subtree, for select/rank
         
         Node(int locationId, String locationName) {
             this.locationId = locationId;
             this.locationName = locationName;
             this.height = 1;
+            this.count = 1;
         }
     }
     
     // Insert a new location into the AVL tree
+    @Override
     public void insert(int locationId, String locationName) {
         root = insertRecursive(root, locationId, locationName);
     }
     
     private Node insertRecursive(Node node, int locationId, String locationName) {
         if (node == null) {
+            size++;
+            if (nameIndex != null) {
+                nameIndex.add(locationId, locationName);
+            }
             return new Node(locationId, locationName);
         }
         
@@ -32,19 +45,30 @@ private Node root;
             node.right = insertRecursive(node.right, locationId, locationName);
         } else {
             // Duplicate ID - update name
+            if (nameIndex != null) {
+                nameIndex.remove(locationId, node.locationName);
+                nameIndex.add(locationId, locationName);
+            }
             node.locationName = locationName;
             return node;
         }
         
-        // Update height and balance factor
-        node.height = 1 + Math.max(getHeight(node.left), getHeight(node.right));
+        // Update height, subtree size and balance factor
+        update(node);
         
         // Balance the tree
-        return balanceNode(node, locationId);
+        return balanceNode(node);
     }
     
     // Delete a location from the AVL tree
+    @Override
     public void delete(int locationId) {
+        if (nameIndex != null) {
+            String locationName = search(locationId);
+            if (locationName != null) {
+                nameIndex.remove(locationId, locationName);
+            }
+        }
         root = deleteRecursive(root, locationId);
     }
     
@@ -62,6 +86,7 @@ private Node root;
             
             // Node with only one child or no child
             if (node.left == null || node.right == null) {
+                size--;
                 Node temp = (node.left != null) ? node.left : node.right;
                 
                 // No child case
@@ -84,35 +109,233 @@ private Node root;
             return null;
         }
         
-        // Update height and balance factor
-        node.height = 1 + Math.max(getHeight(node.left), getHeight(node.right));
+        // Update height, subtree size and balance factor
+        update(node);
         
         // Balance the tree
-        return balanceNode(node, locationId);
+        return balanceNode(node);
+    }
+    
+    // Build a perfectly balanced tree in O(n) from IDs in strictly ascending
+    // order, names[i] belonging to ids[i]
+    public static AVLTree fromSorted(int[] ids, String[] names) {
+        if (ids.length != names.length) {
+            throw new IllegalArgumentException("Expected " + ids.length + " names, got " + names.length);
+        }
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i - 1] >= ids[i]) {
+                throw new IllegalArgumentException("IDs are not strictly ascending at position " + i);
+            }
+        }
+        
+        AVLTree tree = new AVLTree();
+        tree.root = tree.buildBalanced(ids, names, 0, ids.length);
+        tree.size = ids.length;
+        return tree;
+    }
+    
+    private Node buildBalanced(int[] ids, String[] names, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = new Node(ids[middle], names[middle]);
+        node.left = buildBalanced(ids, names, from, middle);
+        node.right = buildBalanced(ids, names, middle + 1, to);
+        update(node);
+        return node;
+    }
+    
+    // Insert or rename many locations at once. The batch is sorted, built into
+    // its own balanced tree and merged in with split/join, which costs
+    // O(m log(n / m + 1)) instead of m separate root-to-leaf inserts. A
+    // repeated ID in the batch keeps its last name.
+    public void insertAll(int[] ids, String[] names) {
+        if (ids.length != names.length) {
+            throw new IllegalArgumentException("Expected " + ids.length + " names, got " + names.length);
+        }
+        int[] order = sortedUnique(ids, true);
+        int[] batchIds = new int[order.length];
+        String[] batchNames = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            batchIds[i] = ids[order[i]];
+            batchNames[i] = names[order[i]];
+        }
+        
+        Node batch = buildBalanced(batchIds, batchNames, 0, batchIds.length);
+        size += batchIds.length;
+        root = union(root, batch);
+        if (nameIndex != null) {
+            // In ID order rather than tree order, which keeps neighbouring
+            // trie updates close together
+            for (int i = 0; i < batchIds.length; i++) {
+                nameIndex.add(batchIds[i], batchNames[i]);
+            }
+        }
+    }
+    
+    // Delete many locations at once with split/join; unknown IDs are ignored
+    public void deleteAll(int[] ids) {
+        int[] order = sortedUnique(ids, false);
+        int[] keys = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = ids[order[i]];
+        }
+        root = difference(root, keys, 0, keys.length);
     }
     
-    // Balance the AVL tree node
-    private Node balanceNode(Node node, int locationId) {
+    // Merge tree b into tree a; b's entries replace a's on equal IDs
+    private Node union(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        Node[] parts = split(a, b.locationId);
+        if (parts[1] != null) {
+            // Renamed: the old entry goes away; the batch's name is indexed afterwards
+            if (nameIndex != null) {
+                nameIndex.remove(parts[1].locationId, parts[1].locationName);
+            }
+            size--;
+        }
+        Node left = union(parts[0], b.left);
+        Node right = union(parts[2], b.right);
+        return join(left, b, right);
+    }
+    
+    // Remove keys[from, to) (ascending) from a tree
+    private Node difference(Node node, int[] keys, int from, int to) {
+        if (node == null || from >= to) {
+            return node;
+        }
+        int middle = (from + to) >>> 1;
+        Node[] parts = split(node, keys[middle]);
+        if (parts[1] != null) {
+            if (nameIndex != null) {
+                nameIndex.remove(parts[1].locationId, parts[1].locationName);
+            }
+            size--;
+        }
+        Node left = difference(parts[0], keys, from, middle);
+        Node right = difference(parts[2], keys, middle + 1, to);
+        return join(left, right);
+    }
+    
+    // Split around locationId into {smaller IDs, matching node or null, larger IDs}
+    private Node[] split(Node node, int locationId) {
+        if (node == null) {
+            return new Node[3];
+        }
+        Node left = node.left;
+        Node right = node.right;
+        if (locationId < node.locationId) {
+            Node[] parts = split(left, locationId);
+            parts[2] = join(parts[2], node, right);
+            return parts;
+        }
+        if (locationId > node.locationId) {
+            Node[] parts = split(right, locationId);
+            parts[0] = join(left, node, parts[0]);
+            return parts;
+        }
+        node.left = null;
+        node.right = null;
+        update(node);
+        return new Node[] {left, node, right};
+    }
+    
+    // Join two trees and a middle node whose ID lies between them, descending
+    // the taller tree until the heights are within one
+    private Node join(Node left, Node middle, Node right) {
+        int leftHeight = getHeight(left);
+        int rightHeight = getHeight(right);
+        if (leftHeight > rightHeight + 1) {
+            left.right = join(left.right, middle, right);
+            update(left);
+            return balanceNode(left);
+        }
+        if (rightHeight > leftHeight + 1) {
+            right.left = join(left, middle, right.left);
+            update(right);
+            return balanceNode(right);
+        }
+        middle.left = left;
+        middle.right = right;
+        update(middle);
+        return middle;
+    }
+    
+    // Join two trees whose IDs do not overlap, borrowing the left tree's maximum
+    private Node join(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Node[] removed = new Node[1];
+        Node rest = removeMax(left, removed);
+        return join(rest, removed[0], right);
+    }
+    
+    private Node removeMax(Node node, Node[] removed) {
+        if (node.right == null) {
+            removed[0] = node;
+            Node left = node.left;
+            node.left = null;
+            return left;
+        }
+        node.right = removeMax(node.right, removed);
+        update(node);
+        return balanceNode(node);
+    }
+    
+    // Positions of ids in ascending ID order with repeats dropped, keeping the
+    // last (or first) occurrence of each
+    private static int[] sortedUnique(int[] ids, boolean keepLast) {
+        long[] packed = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            packed[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(packed);
+        
+        int[] order = new int[ids.length];
+        int count = 0;
+        for (int i = 0; i < packed.length; i++) {
+            boolean repeated = keepLast ? i + 1 < packed.length && (packed[i + 1] >> 32) == (packed[i] >> 32)
+                                        : i > 0 && (packed[i - 1] >> 32) == (packed[i] >> 32);
+            if (!repeated) {
+                order[count++] = (int) packed[i];
+            }
+        }
+        return Arrays.copyOf(order, count);
+    }
+    
+    // Balance the AVL tree node. The case is chosen from the child's own
+    // balance, which works after deletes as well as inserts.
+    private Node balanceNode(Node node) {
         int balance = getBalance(node);
         
         // Left Left Case
-        if (balance > 1 && locationId < node.left.locationId) {
+        if (balance > 1 && getBalance(node.left) >= 0) {
             return rotateRight(node);
         }
         
         // Right Right Case
-        if (balance < -1 && locationId > node.right.locationId) {
+        if (balance < -1 && getBalance(node.right) <= 0) {
             return rotateLeft(node);
         }
         
         // Left Right Case
-        if (balance > 1 && locationId > node.left.locationId) {
+        if (balance > 1) {
             node.left = rotateLeft(node.left);
             return rotateRight(node);
         }
         
         // Right Left Case
-        if (balance < -1 && locationId < node.right.locationId) {
+        if (balance < -1) {
             node.right = rotateRight(node.right);
             return rotateLeft(node);
         }
@@ -128,8 +351,8 @@ private Node root;
         x.right = y;
         y.left = T2;
         
-        y.height = Math.max(getHeight(y.left), getHeight(y.right)) + 1;
-        x.height = Math.max(getHeight(x.left), getHeight(x.right)) + 1;
+        update(y);
+        update(x);
         
         return x;
     }
@@ -142,8 +365,8 @@ private Node root;
         y.left = x;
         x.right = T2;
         
-        x.height = Math.max(getHeight(x.left), getHeight(x.right)) + 1;
-        y.height = Math.max(getHeight(y.left), getHeight(y.right)) + 1;
+        update(x);
+        update(y);
         
         return y;
     }
@@ -153,6 +376,16 @@ private Node root;
         return (node == null) ? 0 : node.height;
     }
     
+    private int getCount(Node node) {
+        return (node == null) ? 0 : node.count;
+    }
+    
+    // Recompute a node's height and subtree size from its children
+    private void update(Node node) {
+        node.height = 1 + Math.max(getHeight(node.left), getHeight(node.right));
+        node.count = 1 + getCount(node.left) + getCount(node.right);
+    }
+    
     private int getBalance(Node node) {
         return (node == null) ? 0 : getHeight(node.left) - getHeight(node.right);
     }
@@ -184,7 +417,134 @@ private Node root;
         }
     }
     
+    // Prefix and fuzzy name lookups over the stored locations. The first
+    // call indexes every stored name, in ID order.
+    public NameIndex getNameIndex() {
+        if (nameIndex == null) {
+            NameIndex index = new NameIndex();
+            inOrder(index::add);
+            nameIndex = index;
+        }
+        return nameIndex;
+    }
+    
+    // Number of locations in the tree
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    // Visit every location in ascending ID order
+    @Override
+    public void inOrder(Visitor visitor) {
+        inOrderRecursive(root, visitor);
+    }
+    
+    private void inOrderRecursive(Node node, Visitor visitor) {
+        if (node != null) {
+            inOrderRecursive(node.left, visitor);
+            visitor.visit(node.locationId, node.locationName);
+            inOrderRecursive(node.right, visitor);
+        }
+    }
+    
+    // ID of the k-th smallest location (k = 0 is the smallest)
+    public int select(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("No location at rank " + k + " of " + size);
+        }
+        Node node = root;
+        while (true) {
+            int leftCount = getCount(node.left);
+            if (k < leftCount) {
+                node = node.left;
+            } else if (k > leftCount) {
+                k -= leftCount + 1;
+                node = node.right;
+            } else {
+                return node.locationId;
+            }
+        }
+    }
+    
+    // Number of stored IDs smaller than locationId (its position if present)
+    public int rank(int locationId) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (locationId <= node.locationId) {
+                node = node.left;
+            } else {
+                rank += getCount(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+    
+    // Number of stored IDs in [lowId, highId]
+    public int countInRange(int lowId, int highId) {
+        if (lowId > highId) {
+            return 0;
+        }
+        return (highId == Integer.MAX_VALUE) ? size - rank(lowId) : rank(highId + 1) - rank(lowId);
+    }
+    
+    // Lazy in-order scan of the locations with IDs in [lowId, highId]
+    public RangeCursor range(int lowId, int highId) {
+        return new RangeCursor(lowId, highId);
+    }
+    
+    // Walks a range with an explicit stack of at most one node per level,
+    // touching O(log n + k) nodes for k results. The tree must not be
+    // modified while a cursor is in use.
+    //   for (RangeCursor c = tree.range(a, b); c.next(); ) { c.getLocationId() ... }
+    public final class RangeCursor {
+        private final int highId;
+        private final Node[] stack;
+        private int top;
+        private Node current;
+        
+        private RangeCursor(int lowId, int highId) {
+            this.highId = highId;
+            this.stack = new Node[getHeight(root) + 1];
+            // Stack the path to the first ID >= lowId
+            Node node = root;
+            while (node != null) {
+                if (node.locationId >= lowId) {
+                    stack[top++] = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+        
+        // Move to the next location in the range; false when the range is done
+        public boolean next() {
+            if (top == 0 || stack[top - 1].locationId > highId) {
+                top = 0;
+                current = null;
+                return false;
+            }
+            current = stack[--top];
+            for (Node node = current.right; node != null; node = node.left) {
+                stack[top++] = node;
+            }
+            return true;
+        }
+        
+        public int getLocationId() {
+            return current.locationId;
+        }
+        
+        public String getLocationName() {
+            return current.locationName;
+        }
+    }
+    
     // Search for a location by ID
+    @Override
     public String search(int locationId) {
         Node result = searchRecursive(root, locationId);
         return (result != null) ? result.locationName : null;
@@ -0,0 +1,271 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// B+-tree location index with the AVLTree contract. Every node holds up to
+// ORDER sorted int keys in a primitive array, so a lookup scans a handful of
+// contiguous arrays (about four levels for a million locations) instead of
+// chasing one object per location. Names live in the leaves, which are linked
+// left to right for in-order walks. Nodes below half full borrow from or merge
+// with a sibling, keeping every leaf at the same depth.
+public class BPlusTree implements LocationIndex {
+    private static final int ORDER = 64;
+    private static final int MIN_KEYS = ORDER / 2;
+
+    private Node root = new Leaf();
+    private int size;
+
+    // Separator produced by the last split, for the caller to insert
+    private int splitKey;
+
+    // Arrays have room for one key past ORDER so a node can overflow before it splits
+    private abstract static class Node {
+        final int[] keys = new int[ORDER + 1];
+        int count;
+    }
+
+    private static final class Leaf extends Node {
+        final String[] names = new String[ORDER + 1];
+        Leaf next;
+    }
+
+    // children[i] holds keys below keys[i]; children[count] holds the rest
+    private static final class Inner extends Node {
+        final Node[] children = new Node[ORDER + 2];
+    }
+
+    @Override
+    public void insert(int locationId, String locationName) {
+        Node sibling = insert(root, locationId, locationName);
+        if (sibling != null) {
+            Inner newRoot = new Inner();
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+    }
+
+    // Returns the new right sibling if the node split, with splitKey set
+    private Node insert(Node node, int locationId, String locationName) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int position = Arrays.binarySearch(leaf.keys, 0, leaf.count, locationId);
+            if (position >= 0) {
+                // Duplicate ID - update name
+                leaf.names[position] = locationName;
+                return null;
+            }
+            position = -position - 1;
+            System.arraycopy(leaf.keys, position, leaf.keys, position + 1, leaf.count - position);
+            System.arraycopy(leaf.names, position, leaf.names, position + 1, leaf.count - position);
+            leaf.keys[position] = locationId;
+            leaf.names[position] = locationName;
+            leaf.count++;
+            size++;
+            return (leaf.count > ORDER) ? splitLeaf(leaf) : null;
+        }
+
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, locationId);
+        Node sibling = insert(inner.children[child], locationId, locationName);
+        if (sibling == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, child, inner.keys, child + 1, inner.count - child);
+        System.arraycopy(inner.children, child + 1, inner.children, child + 2, inner.count - child);
+        inner.keys[child] = splitKey;
+        inner.children[child + 1] = sibling;
+        inner.count++;
+        return (inner.count > ORDER) ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int keep = leaf.count / 2;
+        right.count = leaf.count - keep;
+        System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+        System.arraycopy(leaf.names, keep, right.names, 0, right.count);
+        Arrays.fill(leaf.names, keep, leaf.count, null);
+        leaf.count = keep;
+        right.next = leaf.next;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    // The middle key moves up; it is not kept in either half
+    private Inner splitInner(Inner inner) {
+        Inner right = new Inner();
+        int middle = inner.count / 2;
+        right.count = inner.count - middle - 1;
+        System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+        Arrays.fill(inner.children, middle + 1, inner.count + 1, null);
+        splitKey = inner.keys[middle];
+        inner.count = middle;
+        return right;
+    }
+
+    @Override
+    public void delete(int locationId) {
+        delete(root, locationId);
+        if (root instanceof Inner && root.count == 0) {
+            root = ((Inner) root).children[0];
+        }
+    }
+
+    private void delete(Node node, int locationId) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int position = Arrays.binarySearch(leaf.keys, 0, leaf.count, locationId);
+            if (position >= 0) {
+                leaf.count--;
+                System.arraycopy(leaf.keys, position + 1, leaf.keys, position, leaf.count - position);
+                System.arraycopy(leaf.names, position + 1, leaf.names, position, leaf.count - position);
+                leaf.names[leaf.count] = null;
+                size--;
+            }
+            return;
+        }
+
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, locationId);
+        delete(inner.children[child], locationId);
+        if (inner.children[child].count < MIN_KEYS) {
+            rebalance(inner, child);
+        }
+    }
+
+    // Refill an underfull child from a sibling, or merge it into one
+    private void rebalance(Inner parent, int child) {
+        Node left = (child > 0) ? parent.children[child - 1] : null;
+        Node right = (child < parent.count) ? parent.children[child + 1] : null;
+
+        if (left != null && left.count > MIN_KEYS) {
+            borrowFromLeft(parent, child);
+        } else if (right != null && right.count > MIN_KEYS) {
+            borrowFromRight(parent, child);
+        } else if (left != null) {
+            merge(parent, child - 1);
+        } else if (right != null) {
+            merge(parent, child);
+        }
+    }
+
+    private void borrowFromLeft(Inner parent, int child) {
+        Node node = parent.children[child];
+        Node left = parent.children[child - 1];
+        System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            Leaf leftLeaf = (Leaf) left;
+            System.arraycopy(leaf.names, 0, leaf.names, 1, leaf.count);
+            leaf.keys[0] = leftLeaf.keys[leftLeaf.count - 1];
+            leaf.names[0] = leftLeaf.names[leftLeaf.count - 1];
+            leftLeaf.names[leftLeaf.count - 1] = null;
+            parent.keys[child - 1] = leaf.keys[0];
+        } else {
+            Inner inner = (Inner) node;
+            Inner leftInner = (Inner) left;
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.count + 1);
+            inner.keys[0] = parent.keys[child - 1];
+            inner.children[0] = leftInner.children[leftInner.count];
+            leftInner.children[leftInner.count] = null;
+            parent.keys[child - 1] = leftInner.keys[leftInner.count - 1];
+        }
+        node.count++;
+        left.count--;
+    }
+
+    private void borrowFromRight(Inner parent, int child) {
+        Node node = parent.children[child];
+        Node right = parent.children[child + 1];
+
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            Leaf rightLeaf = (Leaf) right;
+            leaf.keys[leaf.count] = rightLeaf.keys[0];
+            leaf.names[leaf.count] = rightLeaf.names[0];
+            System.arraycopy(rightLeaf.names, 1, rightLeaf.names, 0, rightLeaf.count - 1);
+            rightLeaf.names[rightLeaf.count - 1] = null;
+            System.arraycopy(rightLeaf.keys, 1, rightLeaf.keys, 0, rightLeaf.count - 1);
+            parent.keys[child] = rightLeaf.keys[0];
+        } else {
+            Inner inner = (Inner) node;
+            Inner rightInner = (Inner) right;
+            inner.keys[inner.count] = parent.keys[child];
+            inner.children[inner.count + 1] = rightInner.children[0];
+            parent.keys[child] = rightInner.keys[0];
+            System.arraycopy(rightInner.keys, 1, rightInner.keys, 0, rightInner.count - 1);
+            System.arraycopy(rightInner.children, 1, rightInner.children, 0, rightInner.count);
+            rightInner.children[rightInner.count] = null;
+        }
+        node.count++;
+        right.count--;
+    }
+
+    // Fold children[index + 1] into children[index] and drop their separator
+    private void merge(Inner parent, int index) {
+        Node left = parent.children[index];
+        Node right = parent.children[index + 1];
+
+        if (left instanceof Leaf) {
+            Leaf leftLeaf = (Leaf) left;
+            Leaf rightLeaf = (Leaf) right;
+            System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.count, rightLeaf.count);
+            System.arraycopy(rightLeaf.names, 0, leftLeaf.names, leftLeaf.count, rightLeaf.count);
+            leftLeaf.count += rightLeaf.count;
+            leftLeaf.next = rightLeaf.next;
+        } else {
+            Inner leftInner = (Inner) left;
+            Inner rightInner = (Inner) right;
+            leftInner.keys[leftInner.count] = parent.keys[index];
+            System.arraycopy(rightInner.keys, 0, leftInner.keys, leftInner.count + 1, rightInner.count);
+            System.arraycopy(rightInner.children, 0, leftInner.children, leftInner.count + 1, rightInner.count + 1);
+            leftInner.count += rightInner.count + 1;
+        }
+
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.count - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index - 1);
+        parent.children[parent.count] = null;
+        parent.count--;
+    }
+
+    @Override
+    public String search(int locationId) {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[childIndex(node, locationId)];
+        }
+        Leaf leaf = (Leaf) node;
+        int position = Arrays.binarySearch(leaf.keys, 0, leaf.count, locationId);
+        return (position >= 0) ? leaf.names[position] : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void inOrder(Visitor visitor) {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        for (Leaf leaf = (Leaf) node; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                visitor.visit(leaf.keys[i], leaf.names[i]);
+            }
+        }
+    }
+
+    // Child to descend into: the number of separators <= locationId
+    private static int childIndex(Node node, int locationId) {
+        int position = Arrays.binarySearch(node.keys, 0, node.count, locationId);
+        return (position >= 0) ? position + 1 : -position - 1;
+    }
+}
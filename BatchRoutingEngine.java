@@ -0,0 +1,83 @@
+package Smart_City_Route;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Computes many single-source shortest-path trees at once, e.g. one from every
+// location for nightly planning. Sources are spread over the engine's own
+// work-stealing pool; every worker thread reuses a ShortestPathEngine, so a
+// tree costs O(reached) to reset rather than fresh arrays per source.
+// Trees are handed to a consumer on the worker thread that built them instead
+// of being kept, since all-pairs results would need O(V^2) memory.
+public final class BatchRoutingEngine implements AutoCloseable {
+    private final ForkJoinPool pool;
+
+    // Trees are built in engines of their own, not ShortestPathEngine.current(),
+    // so routing calls made by a consumer cannot overwrite the tree it is reading,
+    // nor a row run on the calling thread overwrite the caller's last query
+    private final ThreadLocal<ShortestPathEngine> treeEngines = ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    // Receives one finished tree. The engine is only valid during the call;
+    // read it with distanceTo/previousOf/reachedCount/reachedAt (dense indices).
+    // The consumer may run its own queries meanwhile, but must not start
+    // another forEachTree on this batch engine.
+    public interface TreeConsumer {
+        void accept(int sourceId, ShortestPathEngine tree);
+    }
+
+    public BatchRoutingEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRoutingEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // One tree per location in the snapshot
+    public void forEachTree(CSRGraph graph, TreeConsumer consumer) {
+        forEachTree(graph, graph.ids, consumer);
+    }
+
+    // One tree per source ID; unknown IDs are skipped. Consumers run
+    // concurrently and must synchronize any state they share.
+    public void forEachTree(CSRGraph graph, int[] sourceIds, TreeConsumer consumer) {
+        ParallelLoop.forEach(pool, sourceIds.length, i -> {
+            int source = graph.indexOf(sourceIds[i]);
+            if (source >= 0) {
+                ShortestPathEngine engine = treeEngines.get();
+                engine.singleSource(graph, source);
+                consumer.accept(sourceIds[i], engine);
+            }
+        });
+    }
+
+    // Sum of distances from each source to every location it reaches, in
+    // source order (-1 for unknown IDs); the basis for closeness rankings
+    public long[] totalDistances(CSRGraph graph, int[] sourceIds) {
+        long[] totals = new long[sourceIds.length];
+        ParallelLoop.forEach(pool, sourceIds.length, i -> {
+            int source = graph.indexOf(sourceIds[i]);
+            if (source < 0) {
+                totals[i] = -1;
+                return;
+            }
+            ShortestPathEngine engine = treeEngines.get();
+            int reached = engine.singleSource(graph, source);
+            long total = 0;
+            for (int r = 0; r < reached; r++) {
+                total += engine.distanceTo(engine.reachedAt(r));
+            }
+            totals[i] = total;
+        });
+        return totals;
+    }
+
+    // Stop the worker threads
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
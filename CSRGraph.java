@@ -0,0 +1,189 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+// Immutable compressed sparse row (CSR) snapshot of a GraphCore.
+// Location IDs are remapped to dense indices 0..size()-1 in ascending ID order,
+// and the roads leaving index i occupy slots offsets[i] .. offsets[i + 1] - 1
+// of the targets/weights arrays. Latitude/longitude are NaN for locations
+// without coordinates. Snapshots are immutable and safe to share between threads.
+public final class CSRGraph {
+    final int[] ids;
+    final String[] names;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    final double[] latitudes;
+    final double[] longitudes;
+    private final long version;
+
+    // Built on first use; volatile so a finished one is published safely
+    private volatile CoordinateHeuristic coordinateHeuristic;
+    private volatile SpatialIndex spatialIndex;
+
+    CSRGraph(int[] ids, String[] names, int[] offsets, int[] targets, int[] weights,
+             double[] latitudes, double[] longitudes, long version) {
+        this.ids = ids;
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.version = version;
+    }
+
+    // Freeze the current contents of a graph into a CSR snapshot
+    public static CSRGraph fromGraph(GraphCore graph) {
+        return graph.freeze();
+    }
+
+    // Build from GraphCore's concurrent maps and its copy-on-write rows of
+    // (neighbour ID, distance) pairs. GraphCore may be editing them meanwhile,
+    // in which case the result is null whenever the maps visibly disagree;
+    // GraphCore validates the rest against its edit counter.
+    static CSRGraph build(Map<Integer, String> locations, Map<Integer, int[]> rows,
+                          Map<Integer, GraphCore.Coordinates> coordinates, long version) {
+        int[] ids = new int[locations.size()];
+        int size = 0;
+        for (int locationId : locations.keySet()) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2 + 1);
+            }
+            ids[size++] = locationId;
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+
+        String[] names = new String[size];
+        int[][] rowOf = new int[size][];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            names[i] = locations.get(ids[i]);
+            rowOf[i] = rows.get(ids[i]);
+            if (names[i] == null || rowOf[i] == null) {
+                return null;
+            }
+            GraphCore.Coordinates position = coordinates.get(ids[i]);
+            latitudes[i] = (position != null) ? position.latitude : Double.NaN;
+            longitudes[i] = (position != null) ? position.longitude : Double.NaN;
+            offsets[i + 1] = offsets[i] + rowOf[i].length / 2;
+        }
+
+        int[] targets = new int[offsets[size]];
+        int[] weights = new int[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            int[] row = rowOf[i];
+            int slot = offsets[i];
+            for (int r = 0; r < row.length; r += 2) {
+                targets[slot] = Arrays.binarySearch(ids, row[r]);
+                if (targets[slot] < 0) {
+                    return null;
+                }
+                weights[slot] = row[r + 1];
+                slot++;
+            }
+        }
+
+        return new CSRGraph(ids, names, offsets, targets, weights, latitudes, longitudes, version);
+    }
+
+    // GraphCore.getVersion() at the time the snapshot was taken
+    public long getVersion() {
+        return version;
+    }
+
+    // Number of locations in the snapshot
+    public int size() {
+        return ids.length;
+    }
+
+    // Number of directed edge slots (each bidirectional road counts twice)
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    // Dense index of a location ID, or -1 if it is not in the snapshot
+    public int indexOf(int locationId) {
+        int index = Arrays.binarySearch(ids, locationId);
+        return (index >= 0) ? index : -1;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public String nameAt(int index) {
+        return names[index];
+    }
+
+    public boolean containsLocation(int locationId) {
+        return indexOf(locationId) >= 0;
+    }
+
+    public String getLocationName(int locationId) {
+        int index = indexOf(locationId);
+        return (index >= 0) ? names[index] : null;
+    }
+
+    public boolean hasCoordinates(int index) {
+        return !Double.isNaN(latitudes[index]);
+    }
+
+    public double latitudeAt(int index) {
+        return latitudes[index];
+    }
+
+    public double longitudeAt(int index) {
+        return longitudes[index];
+    }
+
+    // Straight-line heuristic for A*, built and validated on first use.
+    // Double-checked, so it is built once.
+    public CoordinateHeuristic coordinateHeuristic() {
+        CoordinateHeuristic current = coordinateHeuristic;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (coordinateHeuristic == null) {
+                coordinateHeuristic = new CoordinateHeuristic(this);
+            }
+            return coordinateHeuristic;
+        }
+    }
+
+    // Nearest-location index over the coordinates, built once on first use
+    public SpatialIndex spatialIndex() {
+        SpatialIndex current = spatialIndex;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (spatialIndex == null) {
+                spatialIndex = new SpatialIndex(this);
+            }
+            return spatialIndex;
+        }
+    }
+
+    // Edge slot range for the neighbours of a dense index: [firstEdge, endEdge)
+    public int firstEdge(int index) {
+        return offsets[index];
+    }
+
+    public int endEdge(int index) {
+        return offsets[index + 1];
+    }
+
+    // Dense index of the location an edge slot leads to
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+}
@@ -0,0 +1,194 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// Connected components, articulation points and bridges of a CSRGraph snapshot,
+// found in one iterative depth-first pass (Tarjan's low-link method).
+// An articulation point is a location whose closure splits its component; a
+// bridge is a road whose closure does. The DFS keeps an explicit int stack
+// with a per-node edge cursor instead of recursing, so it handles
+// multi-million-node graphs in O(V + E) time; results are bitsets over dense
+// indices and edge slots.
+public final class ConnectivityAnalysis {
+    private final CSRGraph graph;
+    private final int[] component;
+    private final int componentCount;
+    private final long[] articulation;
+    private final long[] bridgeSlots;
+    private final int bridgeCount;
+
+    private ConnectivityAnalysis(CSRGraph graph, int[] component, int componentCount,
+                                 long[] articulation, long[] bridgeSlots, int bridgeCount) {
+        this.graph = graph;
+        this.component = component;
+        this.componentCount = componentCount;
+        this.articulation = articulation;
+        this.bridgeSlots = bridgeSlots;
+        this.bridgeCount = bridgeCount;
+    }
+
+    public static ConnectivityAnalysis analyze(GraphCore graph) {
+        return analyze(graph.freeze());
+    }
+
+    public static ConnectivityAnalysis analyze(CSRGraph graph) {
+        int size = graph.size();
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+
+        // discovery == 0 means unvisited; low-link values use the same clock
+        int[] discovery = new int[size];
+        int[] low = new int[size];
+        int[] parentEdge = new int[size];
+        int[] cursor = new int[size];
+        int[] stack = new int[size];
+        int[] component = new int[size];
+        long[] articulation = new long[(size + 63) >>> 6];
+        long[] bridgeSlots = new long[(graph.edgeCount() + 63) >>> 6];
+        int bridgeCount = 0;
+        int componentCount = 0;
+        int clock = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (discovery[root] != 0) {
+                continue;
+            }
+            int rootChildren = 0;
+            int top = 0;
+            stack[top++] = root;
+            discovery[root] = low[root] = ++clock;
+            parentEdge[root] = -1;
+            cursor[root] = offsets[root];
+            component[root] = componentCount;
+
+            while (top > 0) {
+                int node = stack[top - 1];
+                if (cursor[node] < offsets[node + 1]) {
+                    int edge = cursor[node]++;
+                    int next = targets[edge];
+                    if (discovery[next] == 0) {
+                        discovery[next] = low[next] = ++clock;
+                        parentEdge[next] = edge;
+                        cursor[next] = offsets[next];
+                        component[next] = componentCount;
+                        stack[top++] = next;
+                        if (node == root) {
+                            rootChildren++;
+                        }
+                    } else if (top < 2 || next != stack[top - 2]) {
+                        // Back edge; the road to the parent (below on the stack) does not count
+                        low[node] = Math.min(low[node], discovery[next]);
+                    }
+                    continue;
+                }
+
+                // node is finished: fold its low-link into the parent
+                top--;
+                if (top == 0) {
+                    break;
+                }
+                int parent = stack[top - 1];
+                low[parent] = Math.min(low[parent], low[node]);
+                if (low[node] > discovery[parent]) {
+                    int edge = parentEdge[node];
+                    bridgeSlots[edge >>> 6] |= 1L << edge;
+                    bridgeCount++;
+                }
+                if (parent != root && low[node] >= discovery[parent]) {
+                    articulation[parent >>> 6] |= 1L << parent;
+                }
+            }
+            if (rootChildren > 1) {
+                articulation[root >>> 6] |= 1L << root;
+            }
+            componentCount++;
+        }
+
+        return new ConnectivityAnalysis(graph, component, componentCount, articulation, bridgeSlots, bridgeCount);
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    // Component number (0 .. getComponentCount() - 1) of a location, or -1 if unknown
+    public int componentOf(int locationId) {
+        int index = graph.indexOf(locationId);
+        return (index >= 0) ? component[index] : -1;
+    }
+
+    // Whether any route connects two locations
+    public boolean isConnected(int startId, int endId) {
+        int start = componentOf(startId);
+        return start >= 0 && start == componentOf(endId);
+    }
+
+    public boolean isArticulationPoint(int locationId) {
+        int index = graph.indexOf(locationId);
+        return index >= 0 && (articulation[index >>> 6] & (1L << index)) != 0;
+    }
+
+    // Location IDs whose removal would split the city, ascending
+    public int[] getArticulationPoints() {
+        IntList points = new IntList();
+        for (int w = 0; w < articulation.length; w++) {
+            for (long bits = articulation[w]; bits != 0; bits &= bits - 1) {
+                points.add(graph.idAt((w << 6) + Long.numberOfTrailingZeros(bits)));
+            }
+        }
+        return points.toArray();
+    }
+
+    // Whether closing the road between two locations would split the city
+    public boolean isBridge(int sourceId, int destId) {
+        int source = graph.indexOf(sourceId);
+        int dest = graph.indexOf(destId);
+        if (source < 0 || dest < 0) {
+            return false;
+        }
+        return isBridgeSlot(source, dest) || isBridgeSlot(dest, source);
+    }
+
+    public int getBridgeCount() {
+        return bridgeCount;
+    }
+
+    // Bridges as flat location ID pairs: source0, dest0, source1, dest1, ...
+    public int[] getBridges() {
+        int[] pairs = new int[bridgeCount * 2];
+        int i = 0;
+        for (int w = 0; w < bridgeSlots.length; w++) {
+            for (long bits = bridgeSlots[w]; bits != 0; bits &= bits - 1) {
+                int edge = (w << 6) + Long.numberOfTrailingZeros(bits);
+                pairs[i++] = graph.idAt(ownerOf(edge));
+                pairs[i++] = graph.idAt(graph.targets[edge]);
+            }
+        }
+        return pairs;
+    }
+
+    private boolean isBridgeSlot(int from, int to) {
+        for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+            if (graph.targets[e] == to) {
+                return (bridgeSlots[e >>> 6] & (1L << e)) != 0;
+            }
+        }
+        return false;
+    }
+
+    private int ownerOf(int edge) {
+        int index = Arrays.binarySearch(graph.offsets, edge);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // Several empty nodes can share this offset; the owner is the last one
+        while (graph.offsets[index + 1] == edge) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,429 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+// Contraction Hierarchies over a CSRGraph snapshot.
+// build() contracts locations one at a time in order of importance, adding a
+// shortcut u-w (via v) whenever contracting v would otherwise lose the only
+// shortest u-v-w path. Queries then run a bidirectional Dijkstra that only
+// follows edges towards more important locations, which settles a tiny part
+// of the graph, and shortcuts are unpacked back into real roads.
+// The hierarchy is immutable and tied to the snapshot it was built from;
+// rebuild it after the graph changes. Queries are safe from any thread.
+public final class ContractionHierarchy {
+    // Witness searches give up after settling this many nodes and keep the shortcut
+    private static final int WITNESS_SETTLE_LIMIT = 100;
+
+    private final CSRGraph graph;
+    private final int[] rank;
+
+    // Upward graph in CSR form: edges from each node to higher-ranked neighbours.
+    // middle[e] is the contracted node a shortcut skips, or -1 for a real road.
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upWeights;
+    private final int[] upMiddle;
+
+    private final ThreadLocal<SearchScratch[]> scratch =
+            ThreadLocal.withInitial(() -> new SearchScratch[] { new SearchScratch(), new SearchScratch() });
+
+    private ContractionHierarchy(CSRGraph graph, int[] rank, int[] upOffsets,
+                                 int[] upTargets, int[] upWeights, int[] upMiddle) {
+        this.graph = graph;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddle = upMiddle;
+    }
+
+    // One-time preprocessing of a snapshot
+    public static ContractionHierarchy build(CSRGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    // Number of shortcuts added during preprocessing
+    public int getShortcutCount() {
+        int count = 0;
+        for (int middle : upMiddle) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Shortest route between two location IDs, with shortcuts unpacked
+    public RouteResult findShortestPath(int startId, int endId) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return RouteResult.unreachable();
+        }
+
+        SearchScratch[] searches = scratch.get();
+        int meeting = search(start, end, searches[0], searches[1]);
+        if (meeting < 0) {
+            return RouteResult.unreachable();
+        }
+
+        int distance = searches[0].distance[meeting] + searches[1].distance[meeting];
+        return new RouteResult(distance, unpackPath(meeting, searches[0], searches[1]));
+    }
+
+    // Shortest distance between two location IDs, or UNREACHABLE. Allocation-free.
+    public int distance(int startId, int endId) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return ShortestPathEngine.UNREACHABLE;
+        }
+
+        SearchScratch[] searches = scratch.get();
+        int meeting = search(start, end, searches[0], searches[1]);
+        return (meeting < 0) ? ShortestPathEngine.UNREACHABLE
+                             : searches[0].distance[meeting] + searches[1].distance[meeting];
+    }
+
+    // Upward bidirectional search; returns the best meeting node or -1
+    private int search(int start, int end, SearchScratch forward, SearchScratch backward) {
+        forward.prepare(graph.size());
+        backward.prepare(graph.size());
+        forward.relax(start, 0, -1);
+        forward.heap.push(start, 0);
+        backward.relax(end, 0, -1);
+        backward.heap.push(end, 0);
+
+        int best = ShortestPathEngine.UNREACHABLE;
+        int meeting = -1;
+
+        while (true) {
+            boolean forwardActive = !forward.heap.isEmpty() && forward.heap.minKey() < best;
+            boolean backwardActive = !backward.heap.isEmpty() && backward.heap.minKey() < best;
+            if (!forwardActive && !backwardActive) {
+                break;
+            }
+
+            boolean expandForward = forwardActive
+                    && (!backwardActive || forward.heap.minKey() <= backward.heap.minKey());
+            SearchScratch side = expandForward ? forward : backward;
+            SearchScratch other = expandForward ? backward : forward;
+
+            int distance = side.heap.minKey();
+            int current = side.heap.pop();
+            side.settled++;
+
+            if (other.reached(current)) {
+                long total = (long) distance + other.distance[current];
+                if (total < best) {
+                    best = (int) total;
+                    meeting = current;
+                }
+            }
+
+            for (int e = upOffsets[current]; e < upOffsets[current + 1]; e++) {
+                int next = upTargets[e];
+                int newDistance = distance + upWeights[e];
+                if (newDistance >= 0 && side.relax(next, newDistance, current)) {
+                    side.heap.push(next, newDistance);
+                }
+            }
+        }
+        return meeting;
+    }
+
+    // Expand start -> meeting -> end into original roads, as location IDs
+    private int[] unpackPath(int meeting, SearchScratch forward, SearchScratch backward) {
+        IntList upward = new IntList();
+        for (int node = meeting; node != -1; node = forward.previous[node]) {
+            upward.add(node);
+        }
+        upward.reverse();
+        for (int node = backward.previous[meeting]; node != -1; node = backward.previous[node]) {
+            upward.add(node);
+        }
+
+        IntList path = new IntList();
+        IntList stack = new IntList();
+        path.add(upward.get(0));
+        for (int i = 1; i < upward.size(); i++) {
+            // Depth-first expansion of the shortcut, kept iterative to bound stack use
+            stack.add(upward.get(i));
+            stack.add(upward.get(i - 1));
+            while (stack.size() > 0) {
+                int from = stack.pop();
+                int to = stack.pop();
+                int middle = upMiddle[findUpEdge(from, to)];
+                if (middle < 0) {
+                    path.add(to);
+                } else {
+                    stack.add(to);
+                    stack.add(middle);
+                    stack.add(middle);
+                    stack.add(from);
+                }
+            }
+        }
+
+        int[] ids = new int[path.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.idAt(path.get(i));
+        }
+        return ids;
+    }
+
+    // Slot of the upward edge joining two nodes; it is stored at the lower-ranked end
+    private int findUpEdge(int a, int b) {
+        int low = (rank[a] < rank[b]) ? a : b;
+        int high = (low == a) ? b : a;
+        for (int e = upOffsets[low]; e < upOffsets[low + 1]; e++) {
+            if (upTargets[e] == high) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing hierarchy edge " + a + " - " + b);
+    }
+
+    // Contraction state: a mutable undirected adjacency (original roads plus
+    // shortcuts, one edge per neighbour pair) and the node priority queue
+    private static final class Builder {
+        private final CSRGraph graph;
+        private final int size;
+        private final IntList[] neighbours;
+        private final IntList[] weights;
+        private final IntList[] middles;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        private final int[] rank;
+
+        private final SearchScratch witness = new SearchScratch();
+        private final IntList shortcutFrom = new IntList();
+        private final IntList shortcutTo = new IntList();
+        private final IntList shortcutWeight = new IntList();
+
+        Builder(CSRGraph graph) {
+            this.graph = graph;
+            this.size = graph.size();
+            this.neighbours = new IntList[size];
+            this.weights = new IntList[size];
+            this.middles = new IntList[size];
+            this.contracted = new boolean[size];
+            this.contractedNeighbours = new int[size];
+            this.rank = new int[size];
+
+            for (int u = 0; u < size; u++) {
+                neighbours[u] = new IntList();
+                weights[u] = new IntList();
+                middles[u] = new IntList();
+            }
+            for (int u = 0; u < size; u++) {
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    if (graph.targets[e] != u) {
+                        addEdge(u, graph.targets[e], graph.weights[e], -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            IndexedMinHeap queue = new IndexedMinHeap(size);
+            for (int v = 0; v < size; v++) {
+                queue.push(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.pop();
+
+                // Lazy update: re-queue if the priority went stale and is now beaten
+                int current = priority(v);
+                if (!queue.isEmpty() && current > queue.minKey()) {
+                    queue.push(v, current);
+                    continue;
+                }
+
+                // priority(v) has just left v's shortcuts in shortcutFrom/To/Weight
+                contract(v);
+                rank[v] = nextRank++;
+
+                IntList adjacent = neighbours[v];
+                for (int i = 0; i < adjacent.size(); i++) {
+                    int u = adjacent.get(i);
+                    if (!contracted[u]) {
+                        contractedNeighbours[u]++;
+                        queue.update(u, priority(u));
+                    }
+                }
+            }
+            return toUpwardGraph();
+        }
+
+        // Edge difference plus contracted-neighbour count
+        private int priority(int v) {
+            int degree = 0;
+            IntList adjacent = neighbours[v];
+            for (int i = 0; i < adjacent.size(); i++) {
+                if (!contracted[adjacent.get(i)]) {
+                    degree++;
+                }
+            }
+            int shortcuts = findShortcuts(v);
+            return 2 * (shortcuts - degree) + contractedNeighbours[v];
+        }
+
+        private void contract(int v) {
+            for (int i = 0; i < shortcutFrom.size(); i++) {
+                int from = shortcutFrom.get(i);
+                int to = shortcutTo.get(i);
+                int weight = shortcutWeight.get(i);
+                addEdge(from, to, weight, v);
+                addEdge(to, from, weight, v);
+            }
+            contracted[v] = true;
+
+            // v keeps its own list, which from now on holds exactly its upward
+            // edges; its neighbours drop v so later searches skip it for free
+            IntList adjacent = neighbours[v];
+            for (int i = 0; i < adjacent.size(); i++) {
+                removeEdge(adjacent.get(i), v);
+            }
+        }
+
+        // Collect into shortcutFrom/To/Weight the shortcuts needed to contract v;
+        // returns how many were found
+        private int findShortcuts(int v) {
+            shortcutFrom.clear();
+            shortcutTo.clear();
+            shortcutWeight.clear();
+
+            IntList adjacent = neighbours[v];
+            IntList adjacentWeights = weights[v];
+            int maxWeight = 0;
+            for (int i = 0; i < adjacent.size(); i++) {
+                if (!contracted[adjacent.get(i)]) {
+                    maxWeight = Math.max(maxWeight, adjacentWeights.get(i));
+                }
+            }
+
+            for (int i = 0; i < adjacent.size(); i++) {
+                int u = adjacent.get(i);
+                if (contracted[u]) {
+                    continue;
+                }
+                int toV = adjacentWeights.get(i);
+                witnessSearch(u, v, (long) toV + maxWeight);
+
+                for (int j = i + 1; j < adjacent.size(); j++) {
+                    int w = adjacent.get(j);
+                    if (contracted[w]) {
+                        continue;
+                    }
+                    long via = (long) toV + adjacentWeights.get(j);
+                    if (via < Integer.MAX_VALUE && witness.distance[w] > via) {
+                        shortcutFrom.add(u);
+                        shortcutTo.add(w);
+                        shortcutWeight.add((int) via);
+                    }
+                }
+            }
+            return shortcutFrom.size();
+        }
+
+        // Bounded Dijkstra from source over uncontracted nodes, avoiding skip
+        private void witnessSearch(int source, int skip, long limit) {
+            witness.prepare(size);
+            witness.relax(source, 0, -1);
+            witness.heap.push(source, 0);
+
+            while (!witness.heap.isEmpty() && witness.settled < WITNESS_SETTLE_LIMIT) {
+                int distance = witness.heap.minKey();
+                if (distance > limit) {
+                    break;
+                }
+                int current = witness.heap.pop();
+                witness.settled++;
+
+                IntList adjacent = neighbours[current];
+                IntList adjacentWeights = weights[current];
+                for (int i = 0; i < adjacent.size(); i++) {
+                    int next = adjacent.get(i);
+                    if (next == skip || contracted[next]) {
+                        continue;
+                    }
+                    int newDistance = distance + adjacentWeights.get(i);
+                    if (newDistance >= 0 && witness.relax(next, newDistance, current)) {
+                        witness.heap.push(next, newDistance);
+                    }
+                }
+            }
+        }
+
+        // Add u -> w, or lower the existing edge's weight
+        private void addEdge(int u, int w, int weight, int middle) {
+            IntList adjacent = neighbours[u];
+            for (int i = 0; i < adjacent.size(); i++) {
+                if (adjacent.get(i) == w) {
+                    if (weight < weights[u].get(i)) {
+                        weights[u].set(i, weight);
+                        middles[u].set(i, middle);
+                    }
+                    return;
+                }
+            }
+            adjacent.add(w);
+            weights[u].add(weight);
+            middles[u].add(middle);
+        }
+
+        private void removeEdge(int u, int w) {
+            IntList adjacent = neighbours[u];
+            for (int i = 0; i < adjacent.size(); i++) {
+                if (adjacent.get(i) == w) {
+                    int last = adjacent.size() - 1;
+                    adjacent.set(i, adjacent.get(last));
+                    weights[u].set(i, weights[u].get(last));
+                    middles[u].set(i, middles[u].get(last));
+                    adjacent.pop();
+                    weights[u].pop();
+                    middles[u].pop();
+                    return;
+                }
+            }
+        }
+
+        private ContractionHierarchy toUpwardGraph() {
+            int[] offsets = new int[size + 1];
+            for (int u = 0; u < size; u++) {
+                int up = 0;
+                IntList adjacent = neighbours[u];
+                for (int i = 0; i < adjacent.size(); i++) {
+                    if (rank[adjacent.get(i)] > rank[u]) {
+                        up++;
+                    }
+                }
+                offsets[u + 1] = offsets[u] + up;
+            }
+
+            int[] targets = new int[offsets[size]];
+            int[] upWeights = new int[offsets[size]];
+            int[] upMiddle = new int[offsets[size]];
+            for (int u = 0; u < size; u++) {
+                int slot = offsets[u];
+                IntList adjacent = neighbours[u];
+                for (int i = 0; i < adjacent.size(); i++) {
+                    if (rank[adjacent.get(i)] > rank[u]) {
+                        targets[slot] = adjacent.get(i);
+                        upWeights[slot] = weights[u].get(i);
+                        upMiddle[slot] = middles[u].get(i);
+                        slot++;
+                    }
+                }
+            }
+            return new ContractionHierarchy(graph, rank, offsets, targets, upWeights, upMiddle);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+// A* heuristic from location coordinates. Each position is converted once to an
+// earth-centred point in km, and the bound is the straight chord between two
+// points, which never exceeds the great-circle (and so the road) distance.
+// Road distances are assumed to be in km, as entered through MainApp.
+public final class CoordinateHeuristic implements DistanceHeuristic {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final boolean complete;
+    private final int[] inconsistentRoads;
+
+    CoordinateHeuristic(CSRGraph graph) {
+        int size = graph.size();
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+
+        boolean allPlaced = true;
+        for (int i = 0; i < size; i++) {
+            if (!graph.hasCoordinates(i)) {
+                allPlaced = false;
+                continue;
+            }
+            double lat = Math.toRadians(graph.latitudeAt(i));
+            double lon = Math.toRadians(graph.longitudeAt(i));
+            x[i] = EARTH_RADIUS_KM * Math.cos(lat) * Math.cos(lon);
+            y[i] = EARTH_RADIUS_KM * Math.cos(lat) * Math.sin(lon);
+            z[i] = EARTH_RADIUS_KM * Math.sin(lat);
+        }
+        complete = allPlaced;
+        inconsistentRoads = complete ? findInconsistentRoads(graph) : new int[0];
+    }
+
+    // The heuristic is only used when every location is placed and no road is
+    // shorter than the straight line between its ends
+    public boolean isUsable() {
+        return complete && inconsistentRoads.length == 0;
+    }
+
+    public boolean hasAllCoordinates() {
+        return complete;
+    }
+
+    // Roads whose stored distance is below the straight-line distance, as
+    // consecutive (sourceId, destId) pairs. Empty when the heuristic is consistent.
+    public int[] getInconsistentRoads() {
+        return inconsistentRoads.clone();
+    }
+
+    @Override
+    public int lowerBound(int node, int target) {
+        return (int) chord(node, target);
+    }
+
+    // Straight-line distance in km between two placed nodes
+    double chord(int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        double dz = z[a] - z[b];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Consistency reduces to chord(u, v) <= w(u, v) for every road, since the
+    // chord is a metric; truncating to int keeps the bound consistent.
+    private int[] findInconsistentRoads(CSRGraph graph) {
+        List<Integer> pairs = new ArrayList<>();
+        for (int u = 0; u < graph.size(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                if (u < v && chord(u, v) > graph.weights[e]) {
+                    pairs.add(graph.idAt(u));
+                    pairs.add(graph.idAt(v));
+                }
+            }
+        }
+        int[] result = new int[pairs.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pairs.get(i);
+        }
+        return result;
+    }
+}
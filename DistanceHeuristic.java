@@ -0,0 +1,8 @@
+package Smart_City_Route;
+
+// Lower bound on the road distance between two CSR node indices, used to steer A*.
+// Implementations must be consistent: lowerBound(u, t) <= w(u, v) + lowerBound(v, t)
+// for every road (u, v), so that each node is settled at most once.
+public interface DistanceHeuristic {
+    int lowerBound(int node, int target);
+}
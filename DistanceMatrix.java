@@ -0,0 +1,60 @@
+package Smart_City_Route;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Road distances from a set of source locations to a set of target locations.
+// Each source costs one Dijkstra search that stops once every target is
+// settled; sources are spread over a fork-join pool, each worker reusing an
+// engine of its own. Results are one flat row-major int array:
+// distances[s * targetIds.length + t] is the distance from sourceIds[s] to
+// targetIds[t], or ShortestPathEngine.UNREACHABLE (also for unknown IDs).
+public final class DistanceMatrix {
+    // Not ShortestPathEngine.current(): the pool may run a row on the calling
+    // thread, which must keep the state of its own last query
+    private static final ThreadLocal<ShortestPathEngine> ROW_ENGINES =
+            ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    private DistanceMatrix() {
+    }
+
+    // Distances from one location to each of targetIds
+    public static int[] oneToMany(CSRGraph graph, int sourceId, int[] targetIds) {
+        int[] distances = new int[targetIds.length];
+        ShortestPathEngine.current().oneToMany(graph, graph.indexOf(sourceId), toIndices(graph, targetIds),
+                distances, 0);
+        return distances;
+    }
+
+    // Full matrix on the common fork-join pool
+    public static int[] manyToMany(CSRGraph graph, int[] sourceIds, int[] targetIds) {
+        return manyToMany(graph, sourceIds, targetIds, ForkJoinPool.commonPool());
+    }
+
+    // Full matrix on a pool of the caller's choosing
+    public static int[] manyToMany(CSRGraph graph, int[] sourceIds, int[] targetIds, ForkJoinPool pool) {
+        int columns = targetIds.length;
+        int[] distances = new int[Math.multiplyExact(sourceIds.length, columns)];
+        if (distances.length == 0) {
+            return distances;
+        }
+
+        int[] sources = toIndices(graph, sourceIds);
+        int[] targets = toIndices(graph, targetIds);
+        ParallelLoop.forEach(pool, sources.length, row ->
+                ROW_ENGINES.get().oneToMany(graph, sources[row], targets, distances, row * columns));
+        return distances;
+    }
+
+    // Convenience for a live graph: the matrix is computed on its current snapshot
+    public static int[] manyToMany(GraphCore graph, int[] sourceIds, int[] targetIds) {
+        return manyToMany(graph.freeze(), sourceIds, targetIds);
+    }
+
+    private static int[] toIndices(CSRGraph graph, int[] locationIds) {
+        int[] indices = new int[locationIds.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = graph.indexOf(locationIds[i]);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,349 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+// Shortest-path trees from registered sources that follow a live GraphCore.
+// Instead of rebuilding a tree after every road change, each change repairs
+// only what it affects, in the style of Ramalingam and Reps:
+//   - a new or shorter road relaxes its two ends and lets the improvement
+//     spread through a Dijkstra over the nodes that get closer;
+//   - a closed or longer road that is not in a tree changes nothing; one
+//     that is disconnects the subtree below it, whose nodes take the best
+//     distance offered by unaffected neighbours and are then re-settled by a
+//     Dijkstra restricted to that subtree.
+// Edits arrive through GraphCore.ChangeListener. The class keeps its own
+// primitive adjacency mirror with stable slot numbers (CSR indices shift on
+// every location change). All updates and reads run under the graph's lock.
+public final class DynamicShortestPaths implements GraphCore.ChangeListener {
+    private final GraphCore graph;
+    private final List<Tree> trees = new ArrayList<>();
+
+    // Slot numbering: location ID <-> slot, with removed slots reused
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+    private int[] idOf;
+    private int slotCount;
+    private final IntList freeSlots = new IntList();
+
+    // Per-slot neighbours as interleaved (slot, distance) pairs
+    private IntList[] adjacency;
+
+    // Repair scratch shared by all trees
+    private final IndexedMinHeap heap = new IndexedMinHeap(0);
+    private final IntList affected = new IntList();
+    private int[] mark = new int[0];
+    private int stamp;
+
+    // One maintained tree. Read it while the graph may be edited; reads take
+    // the graph's lock, so they always see a fully repaired tree.
+    public final class Tree {
+        private int source;
+        private int[] distance;
+        private int[] parent;
+
+        private Tree(int source, int capacity) {
+            this.source = source;
+            this.distance = new int[capacity];
+            this.parent = new int[capacity];
+            Arrays.fill(distance, ShortestPathEngine.UNREACHABLE);
+            Arrays.fill(parent, -1);
+        }
+
+        // Location ID of the source, or -1 once that location has been removed
+        public int getSourceId() {
+            synchronized (graph) {
+                return (source >= 0) ? idOf[source] : -1;
+            }
+        }
+
+        // Current distance from the source, or ShortestPathEngine.UNREACHABLE
+        public int distanceTo(int locationId) {
+            synchronized (graph) {
+                Integer slot = slotOf.get(locationId);
+                return (slot != null) ? distance[slot] : ShortestPathEngine.UNREACHABLE;
+            }
+        }
+
+        // Current route from the source as location IDs, source first
+        public RouteResult routeTo(int locationId) {
+            synchronized (graph) {
+                Integer slot = slotOf.get(locationId);
+                if (slot == null || distance[slot] == ShortestPathEngine.UNREACHABLE) {
+                    return RouteResult.unreachable();
+                }
+                IntList path = new IntList();
+                for (int node = slot; node != -1; node = parent[node]) {
+                    path.add(idOf[node]);
+                }
+                path.reverse();
+                return new RouteResult(distance[slot], path.toArray());
+            }
+        }
+
+        private void grow(int capacity) {
+            int old = distance.length;
+            distance = Arrays.copyOf(distance, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            Arrays.fill(distance, old, capacity, ShortestPathEngine.UNREACHABLE);
+            Arrays.fill(parent, old, capacity, -1);
+        }
+    }
+
+    // Mirror the graph's current roads and start following its edits
+    public DynamicShortestPaths(GraphCore graph) {
+        this.graph = graph;
+        synchronized (graph) {
+            CSRGraph snapshot = graph.freeze();
+            int size = snapshot.size();
+            idOf = new int[Math.max(size, 16)];
+            adjacency = new IntList[idOf.length];
+            for (int i = 0; i < size; i++) {
+                idOf[i] = snapshot.idAt(i);
+                slotOf.put(idOf[i], i);
+                adjacency[i] = new IntList(Math.max(2, 2 * (snapshot.endEdge(i) - snapshot.firstEdge(i))));
+                for (int e = snapshot.firstEdge(i); e < snapshot.endEdge(i); e++) {
+                    adjacency[i].add(snapshot.target(e));
+                    adjacency[i].add(snapshot.weight(e));
+                }
+            }
+            slotCount = size;
+            heap.ensureCapacity(idOf.length);
+            mark = new int[idOf.length];
+            graph.addChangeListener(this);
+        }
+    }
+
+    // Compute a tree from sourceId and keep it up to date; null if the location is unknown
+    public Tree register(int sourceId) {
+        synchronized (graph) {
+            Integer source = slotOf.get(sourceId);
+            if (source == null) {
+                return null;
+            }
+            Tree tree = new Tree(source, idOf.length);
+            tree.distance[source] = 0;
+            heap.push(source, 0);
+            settle(tree);
+            trees.add(tree);
+            return tree;
+        }
+    }
+
+    public void unregister(Tree tree) {
+        synchronized (graph) {
+            trees.remove(tree);
+        }
+    }
+
+    // Stop following the graph
+    public void close() {
+        graph.removeChangeListener(this);
+    }
+
+    @Override
+    public void locationAdded(int locationId, String locationName, GraphCore.Coordinates coordinates) {
+        int slot;
+        if (freeSlots.size() > 0) {
+            slot = freeSlots.pop();
+            adjacency[slot].clear();
+        } else {
+            if (slotCount == idOf.length) {
+                growSlots(idOf.length * 2);
+            }
+            slot = slotCount++;
+            adjacency[slot] = new IntList(4);
+        }
+        idOf[slot] = locationId;
+        slotOf.put(locationId, slot);
+    }
+
+    @Override
+    public void locationRemoved(int locationId) {
+        Integer removed = slotOf.remove(locationId);
+        if (removed == null) {
+            return;
+        }
+        int slot = removed;
+
+        // Detach its roads, keeping its own list to find the subtrees below it
+        IntList roads = adjacency[slot];
+        for (int i = 0; i < roads.size(); i += 2) {
+            removeHalf(roads.get(i), slot);
+        }
+        adjacency[slot] = new IntList(4);
+
+        for (Tree tree : trees) {
+            if (tree.source == slot) {
+                Arrays.fill(tree.distance, ShortestPathEngine.UNREACHABLE);
+                Arrays.fill(tree.parent, -1);
+                tree.source = -1;
+                continue;
+            }
+            if (tree.distance[slot] == ShortestPathEngine.UNREACHABLE) {
+                continue;
+            }
+            collectSubtree(tree, slot, roads);
+            tree.distance[slot] = ShortestPathEngine.UNREACHABLE;
+            tree.parent[slot] = -1;
+            repair(tree, 1);
+        }
+        freeSlots.add(slot);
+    }
+
+    @Override
+    public void roadAdded(int sourceId, int destId, int distance) {
+        int source = slotOf.get(sourceId);
+        int dest = slotOf.get(destId);
+        if (source == dest) {
+            return;
+        }
+
+        int previous = setHalf(source, dest, distance);
+        setHalf(dest, source, distance);
+        for (Tree tree : trees) {
+            if (previous >= 0 && distance > previous) {
+                // A longer road can only hurt the subtree hanging from it
+                repairTreeEdge(tree, source, dest);
+            } else {
+                relax(tree, source, dest, distance);
+                relax(tree, dest, source, distance);
+                settle(tree);
+            }
+        }
+    }
+
+    @Override
+    public void roadRemoved(int sourceId, int destId) {
+        int source = slotOf.get(sourceId);
+        int dest = slotOf.get(destId);
+        removeHalf(source, dest);
+        removeHalf(dest, source);
+        for (Tree tree : trees) {
+            repairTreeEdge(tree, source, dest);
+        }
+    }
+
+    // The road between a and b got worse; repair the subtree it carried, if any
+    private void repairTreeEdge(Tree tree, int a, int b) {
+        int child;
+        if (tree.parent[b] == a) {
+            child = b;
+        } else if (tree.parent[a] == b) {
+            child = a;
+        } else {
+            return;
+        }
+        collectSubtree(tree, child, adjacency[child]);
+        repair(tree, 0);
+    }
+
+    // Gather root and every node whose tree path runs through it into
+    // affected, marking them. rootRoads lists root's neighbours.
+    private void collectSubtree(Tree tree, int root, IntList rootRoads) {
+        if (++stamp == 0) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        affected.clear();
+        affected.add(root);
+        mark[root] = stamp;
+        for (int i = 0; i < affected.size(); i++) {
+            int node = affected.get(i);
+            IntList roads = (node == root) ? rootRoads : adjacency[node];
+            for (int r = 0; r < roads.size(); r += 2) {
+                int next = roads.get(r);
+                if (tree.parent[next] == node && mark[next] != stamp) {
+                    mark[next] = stamp;
+                    affected.add(next);
+                }
+            }
+        }
+    }
+
+    // Re-settle affected nodes from index first on: forget their distances,
+    // seed each with its best unaffected neighbour, then run Dijkstra
+    private void repair(Tree tree, int first) {
+        int[] distance = tree.distance;
+        int[] parent = tree.parent;
+        for (int i = first; i < affected.size(); i++) {
+            int node = affected.get(i);
+            distance[node] = ShortestPathEngine.UNREACHABLE;
+            parent[node] = -1;
+        }
+        for (int i = first; i < affected.size(); i++) {
+            int node = affected.get(i);
+            IntList roads = adjacency[node];
+            for (int r = 0; r < roads.size(); r += 2) {
+                int next = roads.get(r);
+                if (mark[next] != stamp) {
+                    relax(tree, next, node, roads.get(r + 1));
+                }
+            }
+        }
+        settle(tree);
+    }
+
+    // Offer from -> to as a route to to, queueing to if it gets closer
+    private void relax(Tree tree, int from, int to, int weight) {
+        int base = tree.distance[from];
+        if (base == ShortestPathEngine.UNREACHABLE) {
+            return;
+        }
+        int candidate = base + weight;
+        if (candidate >= 0 && candidate < tree.distance[to]) {
+            tree.distance[to] = candidate;
+            tree.parent[to] = from;
+            heap.push(to, candidate);
+        }
+    }
+
+    // Dijkstra from whatever relax() queued
+    private void settle(Tree tree) {
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            IntList roads = adjacency[node];
+            for (int r = 0; r < roads.size(); r += 2) {
+                relax(tree, node, roads.get(r), roads.get(r + 1));
+            }
+        }
+    }
+
+    // Set the distance of from's road to to; returns the old distance or -1 if new
+    private int setHalf(int from, int to, int distance) {
+        IntList roads = adjacency[from];
+        for (int r = 0; r < roads.size(); r += 2) {
+            if (roads.get(r) == to) {
+                int previous = roads.get(r + 1);
+                roads.set(r + 1, distance);
+                return previous;
+            }
+        }
+        roads.add(to);
+        roads.add(distance);
+        return -1;
+    }
+
+    private void removeHalf(int from, int to) {
+        IntList roads = adjacency[from];
+        for (int r = 0; r < roads.size(); r += 2) {
+            if (roads.get(r) == to) {
+                // Swap the last pair into the gap
+                int last = roads.size() - 2;
+                roads.set(r, roads.get(last));
+                roads.set(r + 1, roads.get(last + 1));
+                roads.pop();
+                roads.pop();
+                return;
+            }
+        }
+    }
+
+    private void growSlots(int capacity) {
+        idOf = Arrays.copyOf(idOf, capacity);
+        adjacency = Arrays.copyOf(adjacency, capacity);
+        mark = Arrays.copyOf(mark, capacity);
+        heap.ensureCapacity(capacity);
+        for (Tree tree : trees) {
+            tree.grow(capacity);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package Smart_City_Route;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Level-synchronous, direction-optimizing BFS for hop counts over a CSRGraph.
+// Visited nodes and the bottom-up frontier are bitsets; the top-down frontier
+// is a plain int array. Each level either expands the frontier's edges
+// (top-down) or lets every unvisited node look for a parent in the frontier
+// (bottom-up), whichever touches fewer edges (Beamer's heuristic with
+// alpha = 14, beta = 24). With parallel set, frontier chunks are expanded on
+// the common fork-join pool; top-down claims nodes with a CAS on the visited
+// word, bottom-up gives every task its own 64-node words so needs none.
+public final class FrontierBfs {
+    public static final int UNREACHED = -1;
+
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    // Frontier nodes (top-down) or bitset words (bottom-up) per parallel task
+    private static final int TOP_DOWN_CHUNK = 2048;
+    private static final int BOTTOM_UP_CHUNK = 256;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final CSRGraph graph;
+    private final int[] levels;
+    private final boolean parallel;
+    private final long[] visited;
+    private long[] frontierBits;
+    private long[] nextBits;
+    private int[] frontier;
+    private int[] next;
+    private int frontierSize;
+
+    private FrontierBfs(CSRGraph graph, int[] levels, boolean parallel) {
+        int words = (graph.size() + 63) >>> 6;
+        this.graph = graph;
+        this.levels = levels;
+        this.parallel = parallel;
+        this.visited = new long[words];
+        this.frontier = new int[graph.size()];
+        this.next = new int[graph.size()];
+    }
+
+    // Hop count from startId to every location, indexed by dense index, or
+    // UNREACHED. All entries are UNREACHED if the start is unknown.
+    public static int[] hopLevels(CSRGraph graph, int startId, boolean parallel) {
+        int[] levels = new int[graph.size()];
+        Arrays.fill(levels, UNREACHED);
+        int start = graph.indexOf(startId);
+        if (start >= 0) {
+            new FrontierBfs(graph, levels, parallel).run(start);
+        }
+        return levels;
+    }
+
+    private void run(int start) {
+        int size = graph.size();
+        levels[start] = 0;
+        visited[start >>> 6] |= 1L << start;
+        frontier[0] = start;
+        frontierSize = 1;
+
+        long unexploredEdges = graph.edgeCount() - degree(start);
+        boolean bottomUp = false;
+        for (int depth = 0; frontierSize > 0; depth++) {
+            if (!bottomUp) {
+                long frontierEdges = 0;
+                for (int i = 0; i < frontierSize; i++) {
+                    frontierEdges += degree(frontier[i]);
+                }
+                if (frontierEdges > unexploredEdges / ALPHA) {
+                    bottomUp = true;
+                    frontierToBits();
+                }
+            } else if (frontierSize < size / BETA) {
+                bottomUp = false;
+                bitsToFrontier();
+            }
+
+            unexploredEdges -= bottomUp ? bottomUpStep(depth + 1) : topDownStep(depth + 1);
+        }
+    }
+
+    // Expand the frontier's edges; returns the degree sum of the new nodes
+    private long topDownStep(int level) {
+        long newEdges;
+        int count;
+        if (!parallel || frontierSize < 2 * TOP_DOWN_CHUNK) {
+            count = 0;
+            newEdges = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                int node = frontier[i];
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    int target = graph.targets[e];
+                    long bit = 1L << target;
+                    if ((visited[target >>> 6] & bit) == 0) {
+                        visited[target >>> 6] |= bit;
+                        levels[target] = level;
+                        next[count++] = target;
+                        newEdges += degree(target);
+                    }
+                }
+            }
+        } else {
+            int chunks = (frontierSize + TOP_DOWN_CHUNK - 1) / TOP_DOWN_CHUNK;
+            IntList[] found = new IntList[chunks];
+            long[] edges = new long[chunks];
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                IntList claimed = new IntList(TOP_DOWN_CHUNK);
+                long chunkEdges = 0;
+                int end = Math.min(frontierSize, (chunk + 1) * TOP_DOWN_CHUNK);
+                for (int i = chunk * TOP_DOWN_CHUNK; i < end; i++) {
+                    int node = frontier[i];
+                    for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                        int target = graph.targets[e];
+                        if (claim(target)) {
+                            levels[target] = level;
+                            claimed.add(target);
+                            chunkEdges += degree(target);
+                        }
+                    }
+                }
+                found[chunk] = claimed;
+                edges[chunk] = chunkEdges;
+            });
+
+            count = 0;
+            newEdges = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                for (int i = 0; i < found[chunk].size(); i++) {
+                    next[count++] = found[chunk].get(i);
+                }
+                newEdges += edges[chunk];
+            }
+        }
+
+        int[] swap = frontier;
+        frontier = next;
+        next = swap;
+        frontierSize = count;
+        return newEdges;
+    }
+
+    // Let unvisited nodes find a parent in frontierBits; returns the degree
+    // sum of the new nodes
+    private long bottomUpStep(int level) {
+        int words = visited.length;
+        int chunks = (words + BOTTOM_UP_CHUNK - 1) / BOTTOM_UP_CHUNK;
+        long[] results = new long[chunks];
+        IntStream range = IntStream.range(0, chunks);
+        (parallel ? range.parallel() : range).forEach(chunk -> results[chunk] =
+                bottomUpWords(chunk * BOTTOM_UP_CHUNK, Math.min(words, (chunk + 1) * BOTTOM_UP_CHUNK), level));
+
+        int count = 0;
+        long newEdges = 0;
+        for (long result : results) {
+            count += (int) (result >>> 40);
+            newEdges += result & ((1L << 40) - 1);
+        }
+
+        long[] swap = frontierBits;
+        frontierBits = nextBits;
+        nextBits = swap;
+        frontierSize = count;
+        return newEdges;
+    }
+
+    // Bottom-up over visited words [fromWord, toWord); packs the number of
+    // new nodes into the top 24 bits and their degree sum into the low 40
+    private long bottomUpWords(int fromWord, int toWord, int level) {
+        int size = graph.size();
+        long count = 0;
+        long newEdges = 0;
+        for (int w = fromWord; w < toWord; w++) {
+            long found = 0;
+            long unvisited = ~visited[w];
+            while (unvisited != 0) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                if (node >= size) {
+                    break;
+                }
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    int parent = graph.targets[e];
+                    if ((frontierBits[parent >>> 6] & (1L << parent)) != 0) {
+                        found |= 1L << node;
+                        levels[node] = level;
+                        count++;
+                        newEdges += degree(node);
+                        break;
+                    }
+                }
+            }
+            visited[w] |= found;
+            nextBits[w] = found;
+        }
+        return (count << 40) | newEdges;
+    }
+
+    private void frontierToBits() {
+        if (frontierBits == null) {
+            frontierBits = new long[visited.length];
+            nextBits = new long[visited.length];
+        } else {
+            Arrays.fill(frontierBits, 0);
+        }
+        for (int i = 0; i < frontierSize; i++) {
+            frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+        }
+    }
+
+    private void bitsToFrontier() {
+        int count = 0;
+        for (int w = 0; w < frontierBits.length; w++) {
+            for (long bits = frontierBits[w]; bits != 0; bits &= bits - 1) {
+                frontier[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        frontierSize = count;
+    }
+
+    // Atomically mark a node visited; false if another task got there first
+    private boolean claim(int node) {
+        int word = node >>> 6;
+        long bit = 1L << node;
+        long current = (long) WORDS.getVolatile(visited, word);
+        while ((current & bit) == 0) {
+            long witness = (long) WORDS.compareAndExchange(visited, word, current, current | bit);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    private int degree(int node) {
+        return graph.offsets[node + 1] - graph.offsets[node];
+    }
+}
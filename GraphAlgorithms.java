@@ -3,155 +3,122 @@ package Smart_City_Route;
 import java.util.*;
 
 public class GraphAlgorithms {
-	// BFS Traversal using Queue
-    public static void bfsTraversal(GraphCore graph, int startId) {
-        if (!graph.containsLocation(startId)) {
-            System.out.println("Start location not found!");
-            return;
-        }
-        
-        Set<Integer> visited = new HashSet<>();
-        Queue<Integer> queue = new LinkedList<>();
-        
-        System.out.println("BFS Traversal starting from " + graph.getLocationName(startId) + ":");
-        
-        queue.offer(startId);
-        visited.add(startId);
-        
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
-            System.out.print(graph.getLocationName(current) + " ");
-            
-            List<GraphCore.Edge> neighbors = graph.getAdjacencyList().get(current);
-            for (GraphCore.Edge edge : neighbors) {
-                if (!visited.contains(edge.destination)) {
-                    visited.add(edge.destination);
-                    queue.offer(edge.destination);
-                }
-            }
-        }
-        System.out.println();
+	// BFS Traversal using Queue.
+    // Returns location IDs in visit order (empty if the start is unknown).
+    public static int[] bfsTraversal(GraphCore graph, int startId) {
+        return bfsTraversal(graph.freeze(), startId);
     }
-    
-    // DFS Traversal using Stack
-    public static void dfsTraversal(GraphCore graph, int startId) {
-        if (!graph.containsLocation(startId)) {
-            System.out.println("Start location not found!");
-            return;
+
+    public static int[] bfsTraversal(CSRGraph graph, int startId) {
+        int start = graph.indexOf(startId);
+        if (start < 0) {
+            return new int[0];
         }
-        
-        Set<Integer> visited = new HashSet<>();
-        Stack<Integer> stack = new Stack<>();
-        
-        System.out.println("DFS Traversal starting from " + graph.getLocationName(startId) + ":");
-        
-        stack.push(startId);
-        
-        while (!stack.isEmpty()) {
-            int current = stack.pop();
-            
-            if (!visited.contains(current)) {
-                visited.add(current);
-                System.out.print(graph.getLocationName(current) + " ");
-                
-                List<GraphCore.Edge> neighbors = graph.getAdjacencyList().get(current);
-                for (GraphCore.Edge edge : neighbors) {
-                    if (!visited.contains(edge.destination)) {
-                        stack.push(edge.destination);
-                    }
+
+        boolean[] visited = new boolean[graph.size()];
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = start;
+        visited[start] = true;
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                int next = graph.targets[e];
+                if (!visited[next]) {
+                    visited[next] = true;
+                    queue[tail++] = next;
                 }
             }
         }
-        System.out.println();
+        return toLocationIds(graph, queue, tail);
     }
-    
-    // Dijkstra's Algorithm for shortest path
-    public static void findShortestPath(GraphCore graph, int startId, int endId) {
-        if (!graph.containsLocation(startId) || !graph.containsLocation(endId)) {
-            System.out.println("One or both locations not found!");
-            return;
-        }
-        
-        if (startId == endId) {
-            System.out.println("Start and end locations are the same!");
-            return;
-        }
-        
-        Map<Integer, Integer> distances = new HashMap<>();
-        Map<Integer, Integer> previous = new HashMap<>();
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(Comparator.comparingInt(node -> node.distance));
-        
-        // Initialize distances
-        for (int locationId : graph.getLocations().keySet()) {
-            if (locationId == startId) {
-                distances.put(locationId, 0);
-            } else {
-                distances.put(locationId, Integer.MAX_VALUE);
-            }
-            previous.put(locationId, -1);
+
+    // DFS Traversal using an explicit stack.
+    // Returns location IDs in visit order (empty if the start is unknown).
+    public static int[] dfsTraversal(GraphCore graph, int startId) {
+        return dfsTraversal(graph.freeze(), startId);
+    }
+
+    // Each stack entry keeps a cursor into its neighbour list, so the stack
+    // never holds more than one entry per location. Neighbours are tried from
+    // the last one back, the same order the push-all-neighbours version gave.
+    public static int[] dfsTraversal(CSRGraph graph, int startId) {
+        int start = graph.indexOf(startId);
+        if (start < 0) {
+            return new int[0];
         }
-        
-        priorityQueue.offer(new Node(startId, 0));
-        
-        while (!priorityQueue.isEmpty()) {
-            Node current = priorityQueue.poll();
-            int currentId = current.id;
-            
-            if (currentId == endId) {
-                break;
-            }
-            
-            if (current.distance > distances.get(currentId)) {
+
+        long[] visited = new long[(graph.size() + 63) >>> 6];
+        int[] order = new int[graph.size()];
+        int[] stack = new int[graph.size()];
+        int[] cursor = new int[graph.size()];
+        int count = 0;
+        int top = 0;
+
+        visited[start >>> 6] |= 1L << start;
+        order[count++] = start;
+        stack[top++] = start;
+        cursor[start] = graph.offsets[start + 1];
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            if (cursor[current] == graph.offsets[current]) {
+                top--;
                 continue;
             }
-            
-            List<GraphCore.Edge> neighbors = graph.getAdjacencyList().get(currentId);
-            for (GraphCore.Edge edge : neighbors) {
-                int newDistance = distances.get(currentId) + edge.distance;
-                
-                if (newDistance < distances.get(edge.destination)) {
-                    distances.put(edge.destination, newDistance);
-                    previous.put(edge.destination, currentId);
-                    priorityQueue.offer(new Node(edge.destination, newDistance));
-                }
-            }
-        }
-        
-        // Reconstruct and display path
-        if (distances.get(endId) == Integer.MAX_VALUE) {
-            System.out.println("No path exists between " + graph.getLocationName(startId) + 
-                             " and " + graph.getLocationName(endId));
-        } else {
-            System.out.println("Shortest path from " + graph.getLocationName(startId) + 
-                             " to " + graph.getLocationName(endId) + ":");
-            System.out.println("Total distance: " + distances.get(endId));
-            
-            List<Integer> path = new ArrayList<>();
-            int current = endId;
-            
-            while (current != -1) {
-                path.add(current);
-                current = previous.get(current);
-            }
-            
-            Collections.reverse(path);
-            
-            for (int i = 0; i < path.size(); i++) {
-                if (i > 0) System.out.print(" -> ");
-                System.out.print(graph.getLocationName(path.get(i)) + " (" + path.get(i) + ")");
+
+            int next = graph.targets[--cursor[current]];
+            if ((visited[next >>> 6] & (1L << next)) == 0) {
+                visited[next >>> 6] |= 1L << next;
+                order[count++] = next;
+                stack[top++] = next;
+                cursor[next] = graph.offsets[next + 1];
             }
-            System.out.println();
         }
+        return toLocationIds(graph, order, count);
+    }
+
+    // Dijkstra's Algorithm for shortest path.
+    // Unknown or unreachable locations give a result with isFound() == false.
+    public static RouteResult findShortestPath(GraphCore graph, int startId, int endId) {
+        return findShortestPath(graph.freeze(), startId, endId, SearchStrategy.DIJKSTRA);
     }
-    
-    // Helper class for priority queue in Dijkstra's algorithm
-    private static class Node {
-        int id;
+
+    public static RouteResult findShortestPath(GraphCore graph, int startId, int endId, SearchStrategy strategy) {
+        return findShortestPath(graph.freeze(), startId, endId, strategy);
+    }
+
+    public static RouteResult findShortestPath(CSRGraph graph, int startId, int endId, SearchStrategy strategy) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return RouteResult.unreachable();
+        }
+
+        ShortestPathEngine engine = ShortestPathEngine.current();
         int distance;
-        
-        Node(int id, int distance) {
-            this.id = id;
-            this.distance = distance;
+        switch (strategy) {
+            case BIDIRECTIONAL: distance = engine.bidirectionalDijkstra(graph, start, end); break;
+            case A_STAR:
+                CoordinateHeuristic heuristic = graph.coordinateHeuristic();
+                distance = heuristic.isUsable() ? engine.aStar(graph, start, end, heuristic)
+                                                : engine.dijkstra(graph, start, end);
+                break;
+            default: distance = engine.dijkstra(graph, start, end);
+        }
+        return RouteResult.fromEngine(graph, engine, distance);
+    }
+
+    // Map the first count dense indices of nodes to location IDs
+    private static int[] toLocationIds(CSRGraph graph, int[] nodes, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = graph.idAt(nodes[i]);
         }
+        return ids;
     }
 }
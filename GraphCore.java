@@ -1,14 +1,77 @@
 package Smart_City_Route;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Thread-safe city graph. Edits are serialized on the graph's lock; routing
+// queries run on the immutable CSRGraph returned by freeze(), which is
+// published atomically and never changes underneath a running query.
+// Besides the editable adjacency lists, every location's roads are kept as an
+// immutable row that an edit replaces rather than changes, so snapshots can
+// be rebuilt from the rows without taking the writers' lock.
 public class GraphCore {
 	 private Map<Integer, String> locations;
 	    private Map<Integer, List<Edge>> adjacencyList;
+	    // Per location: neighbour ID -> slot of that road in its adjacency list
+	    private Map<Integer, Map<Integer, Integer>> edgeIndex;
+	    private Map<Integer, Coordinates> coordinates;
+	    // Per location: (neighbour ID, distance) pairs, replaced on every change
+	    private final Map<Integer, int[]> rows;
+	    private final AtomicReference<CSRGraph> snapshot = new AtomicReference<>();
+	    private final Object rebuildLock = new Object();
+	    private volatile long version;
+	    // Sequence counter for lock-free snapshot builds: odd while an edit is
+	    // being applied, bumped again once it is complete
+	    private volatile long edits;
+	    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+	    private static final int[] NO_ROADS = new int[0];
 	    
 	    public GraphCore() {
-	        this.locations = new HashMap<>();
-	        this.adjacencyList = new HashMap<>();
+	        this(16);
+	    }
+	    
+	    // Pre-size the maps for bulk loading
+	    public GraphCore(int expectedLocations) {
+	        int capacity = Math.max(16, (int) (expectedLocations / 0.75f) + 1);
+	        this.locations = new ConcurrentHashMap<>(capacity);
+	        this.adjacencyList = new HashMap<>(capacity);
+	        this.edgeIndex = new HashMap<>(capacity);
+	        this.coordinates = new ConcurrentHashMap<>(capacity);
+	        this.rows = new ConcurrentHashMap<>(capacity);
+	    }
+	    
+	    // Editable graph with the contents of a snapshot (e.g. from GraphLoader).
+	    // The snapshot is kept as the frozen view when it has no duplicate roads.
+	    public static GraphCore fromSnapshot(CSRGraph graph) {
+	        GraphCore city = new GraphCore(graph.size());
+	        for (int i = 0; i < graph.size(); i++) {
+	            int locationId = graph.idAt(i);
+	            int degree = graph.endEdge(i) - graph.firstEdge(i);
+	            city.locations.put(locationId, graph.nameAt(i));
+	            city.adjacencyList.put(locationId, new ArrayList<>(degree));
+	            city.edgeIndex.put(locationId, new HashMap<>(Math.max(4, degree * 2)));
+	            if (graph.hasCoordinates(i)) {
+	                city.coordinates.put(locationId, new Coordinates(graph.latitudeAt(i), graph.longitudeAt(i)));
+	            }
+	        }
+	        
+	        int edges = 0;
+	        for (int i = 0; i < graph.size(); i++) {
+	            int locationId = graph.idAt(i);
+	            for (int e = graph.firstEdge(i); e < graph.endEdge(i); e++) {
+	                city.link(locationId, graph.idAt(graph.target(e)), graph.weight(e));
+	            }
+	            edges += city.adjacencyList.get(locationId).size();
+	            city.publishRow(locationId);
+	        }
+	        
+	        city.version = graph.getVersion();
+	        if (edges == graph.edgeCount()) {
+	            city.snapshot.set(graph);
+	        }
+	        return city;
 	    }
 	    
 	    // Edge class to represent roads between locations
@@ -27,63 +90,211 @@ public class GraphCore {
 	        }
 	    }
 	    
+	    // Optional geographic position of a location, in degrees
+	    public static class Coordinates {
+	        public final double latitude;
+	        public final double longitude;
+	        
+	        public Coordinates(double latitude, double longitude) {
+	            this.latitude = latitude;
+	            this.longitude = longitude;
+	        }
+	        
+	        @Override
+	        public String toString() {
+	            return "(" + latitude + ", " + longitude + ")";
+	        }
+	    }
+	    
+	    // Notified after every successful edit while the graph's lock is still
+	    // held, so callbacks arrive in the order the edits were applied and
+	    // getVersion() already counts the edit being reported
+	    public interface ChangeListener {
+	        default void locationAdded(int locationId, String locationName, Coordinates coordinates) {}
+	        default void locationRemoved(int locationId) {}
+	        default void coordinatesChanged(int locationId, Coordinates coordinates) {}
+	        default void roadAdded(int sourceId, int destId, int distance) {}
+	        default void roadRemoved(int sourceId, int destId) {}
+	    }
+	    
+	    public void addChangeListener(ChangeListener listener) {
+	        listeners.add(listener);
+	    }
+	    
+	    public void removeChangeListener(ChangeListener listener) {
+	        listeners.remove(listener);
+	    }
+	    
 	    // Add a new location to the graph
-	    public boolean addLocation(int locationId, String locationName) {
+	    public synchronized boolean addLocation(int locationId, String locationName) {
+	        return addLocation(locationId, locationName, null);
+	    }
+	    
+	    // Add a new location with a known position
+	    public synchronized boolean addLocation(int locationId, String locationName, double latitude, double longitude) {
+	        return addLocation(locationId, locationName, new Coordinates(latitude, longitude));
+	    }
+	    
+	    private boolean addLocation(int locationId, String locationName, Coordinates position) {
 	        if (locations.containsKey(locationId)) {
 	            return false;
 	        }
 	        
+	        beginEdit();
 	        locations.put(locationId, locationName);
 	        adjacencyList.put(locationId, new ArrayList<>());
+	        edgeIndex.put(locationId, new HashMap<>());
+	        rows.put(locationId, NO_ROADS);
+	        if (position != null) {
+	            coordinates.put(locationId, position);
+	        }
+	        endEdit(true);
+	        for (ChangeListener listener : listeners) {
+	            listener.locationAdded(locationId, locationName, position);
+	        }
+	        return true;
+	    }
+	    
+	    // Set or move the position of an existing location
+	    public synchronized boolean setCoordinates(int locationId, double latitude, double longitude) {
+	        if (!locations.containsKey(locationId)) {
+	            return false;
+	        }
+	        
+	        Coordinates position = new Coordinates(latitude, longitude);
+	        beginEdit();
+	        coordinates.put(locationId, position);
+	        endEdit(true);
+	        for (ChangeListener listener : listeners) {
+	            listener.coordinatesChanged(locationId, position);
+	        }
 	        return true;
 	    }
 	    
 	    // Remove a location and all its connections
-	    public boolean removeLocation(int locationId) {
+	    public synchronized boolean removeLocation(int locationId) {
 	        if (!locations.containsKey(locationId)) {
 	            return false;
 	        }
 	        
-	        // Remove all edges pointing to this location
-	        for (List<Edge> edges : adjacencyList.values()) {
-	            edges.removeIf(edge -> edge.destination == locationId);
+	        beginEdit();
+	        // Roads are bidirectional, so only the neighbours' lists point back here
+	        for (Edge edge : adjacencyList.get(locationId)) {
+	            if (edge.destination != locationId) {
+	                unlink(edge.destination, locationId);
+	                publishRow(edge.destination);
+	            }
 	        }
 	        
 	        // Remove the location and its edges
 	        locations.remove(locationId);
 	        adjacencyList.remove(locationId);
+	        edgeIndex.remove(locationId);
+	        rows.remove(locationId);
+	        coordinates.remove(locationId);
+	        endEdit(true);
+	        for (ChangeListener listener : listeners) {
+	            listener.locationRemoved(locationId);
+	        }
 	        
 	        return true;
 	    }
 	    
-	    // Add a bidirectional road between two locations
-	    public boolean addRoad(int sourceId, int destId, int distance) {
+	    // Add a bidirectional road between two locations.
+	    // Adding a road that already exists updates its distance.
+	    public synchronized boolean addRoad(int sourceId, int destId, int distance) {
 	        if (!locations.containsKey(sourceId) || !locations.containsKey(destId)) {
 	            return false;
 	        }
 	        
+	        beginEdit();
 	        // Add edge from source to destination
-	        adjacencyList.get(sourceId).add(new Edge(destId, distance));
+	        link(sourceId, destId, distance);
 	        // Add edge from destination to source (bidirectional)
-	        adjacencyList.get(destId).add(new Edge(sourceId, distance));
+	        link(destId, sourceId, distance);
+	        publishRow(sourceId);
+	        publishRow(destId);
+	        endEdit(true);
+	        for (ChangeListener listener : listeners) {
+	            listener.roadAdded(sourceId, destId, distance);
+	        }
 	        
 	        return true;
 	    }
 	    
 	    // Remove road between two locations
-	    public boolean removeRoad(int sourceId, int destId) {
+	    public synchronized boolean removeRoad(int sourceId, int destId) {
 	        if (!locations.containsKey(sourceId) || !locations.containsKey(destId)) {
 	            return false;
 	        }
 	        
-	        boolean removed1 = adjacencyList.get(sourceId).removeIf(edge -> edge.destination == destId);
-	        boolean removed2 = adjacencyList.get(destId).removeIf(edge -> edge.destination == sourceId);
+	        beginEdit();
+	        boolean removed1 = unlink(sourceId, destId);
+	        boolean removed2 = unlink(destId, sourceId);
+	        if (removed1 || removed2) {
+	            publishRow(sourceId);
+	            publishRow(destId);
+	        }
+	        endEdit(removed1 || removed2);
+	        if (removed1 || removed2) {
+	            for (ChangeListener listener : listeners) {
+	                listener.roadRemoved(sourceId, destId);
+	            }
+	        }
 	        
 	        return removed1 || removed2;
 	    }
 	    
+	    // Distance of the road between two locations, or -1 if there is none
+	    public synchronized int getRoadDistance(int sourceId, int destId) {
+	        Map<Integer, Integer> index = edgeIndex.get(sourceId);
+	        Integer slot = (index != null) ? index.get(destId) : null;
+	        return (slot != null) ? adjacencyList.get(sourceId).get(slot).distance : -1;
+	    }
+	    
+	    // Add or reweight the edge from -> to in O(1) expected time
+	    private void link(int from, int to, int distance) {
+	        List<Edge> edges = adjacencyList.get(from);
+	        Map<Integer, Integer> index = edgeIndex.get(from);
+	        Integer slot = index.get(to);
+	        
+	        if (slot != null) {
+	            edges.get(slot).distance = distance;
+	        } else {
+	            index.put(to, edges.size());
+	            edges.add(new Edge(to, distance));
+	        }
+	    }
+	    
+	    // Replace a location's road row with one matching its adjacency list
+	    private void publishRow(int locationId) {
+	        List<Edge> edges = adjacencyList.get(locationId);
+	        int[] row = new int[edges.size() * 2];
+	        for (int i = 0; i < edges.size(); i++) {
+	            row[2 * i] = edges.get(i).destination;
+	            row[2 * i + 1] = edges.get(i).distance;
+	        }
+	        rows.put(locationId, row);
+	    }
+	    
+	    // Remove the edge from -> to by moving the list's last edge into its slot
+	    private boolean unlink(int from, int to) {
+	        Integer slot = edgeIndex.get(from).remove(to);
+	        if (slot == null) {
+	            return false;
+	        }
+	        
+	        List<Edge> edges = adjacencyList.get(from);
+	        Edge last = edges.remove(edges.size() - 1);
+	        if (slot < edges.size()) {
+	            edges.set(slot, last);
+	            edgeIndex.get(from).put(last.destination, slot);
+	        }
+	        return true;
+	    }
+	    
 	    // Display all connections in the city
-	    public void displayConnections() {
+	    public synchronized void displayConnections() {
 	        if (locations.isEmpty()) {
 	            System.out.println("No locations in the city!");
 	            return;
@@ -109,13 +320,25 @@ public class GraphCore {
 	        }
 	    }
 	    
-	    // Getter methods for algorithms
+	    // Getter methods for algorithms.
+	    // Read-only live view; safe to iterate while other threads edit the graph.
 	    public Map<Integer, String> getLocations() {
-	        return locations;
+	        return Collections.unmodifiableMap(locations);
 	    }
 	    
+	    // Read-only copy of the roads as of freeze(). Allocates a map entry and
+	    // an Edge per road on every call, O(V + E); use freeze() on hot paths.
 	    public Map<Integer, List<Edge>> getAdjacencyList() {
-	        return adjacencyList;
+	        CSRGraph graph = freeze();
+	        Map<Integer, List<Edge>> copy = new HashMap<>(Math.max(16, (int) (graph.size() / 0.75f) + 1));
+	        for (int i = 0; i < graph.size(); i++) {
+	            List<Edge> edges = new ArrayList<>(graph.endEdge(i) - graph.firstEdge(i));
+	            for (int e = graph.firstEdge(i); e < graph.endEdge(i); e++) {
+	                edges.add(new Edge(graph.idAt(graph.target(e)), graph.weight(e)));
+	            }
+	            copy.put(graph.idAt(i), Collections.unmodifiableList(edges));
+	        }
+	        return Collections.unmodifiableMap(copy);
 	    }
 	    
 	    public boolean containsLocation(int locationId) {
@@ -125,4 +348,79 @@ public class GraphCore {
 	    public String getLocationName(int locationId) {
 	        return locations.get(locationId);
 	    }
+	    
+	    // Position of a location, or null if none was given
+	    public Coordinates getCoordinates(int locationId) {
+	        return coordinates.get(locationId);
+	    }
+	    
+	    // Counter bumped by every successful edit
+	    public long getVersion() {
+	        return version;
+	    }
+	    
+	    // Compact read-only CSR snapshot for the routing algorithms, at least as
+	    // new as every edit completed before the call. The published snapshot is
+	    // reused until the next edit; after one, a reader rebuilds it from the
+	    // rows without the writers' lock and keeps the result only if no edit
+	    // overlapped the build (readers arriving meanwhile wait for that build,
+	    // not for writers). Should edits keep overlapping, the last attempt
+	    // holds the writers' lock so a busy feed cannot starve readers.
+	    public CSRGraph freeze() {
+	        long wanted = version;
+	        CSRGraph current = snapshot.get();
+	        if (current != null && current.getVersion() >= wanted) {
+	            return current;
+	        }
+	        if (Thread.holdsLock(this)) {
+	            // No edit is half applied while we hold the writers' lock
+	            return publish(CSRGraph.build(locations, rows, coordinates, version));
+	        }
+	        
+	        synchronized (rebuildLock) {
+	            current = snapshot.get();
+	            if (current != null && current.getVersion() >= wanted) {
+	                return current;
+	            }
+	            for (int attempt = 0; attempt < 3; attempt++) {
+	                long before = edits;
+	                if ((before & 1) == 0) {
+	                    CSRGraph built = CSRGraph.build(locations, rows, coordinates, version);
+	                    if (built != null && edits == before) {
+	                        return publish(built);
+	                    }
+	                }
+	                Thread.yield();
+	            }
+	            synchronized (this) {
+	                return publish(CSRGraph.build(locations, rows, coordinates, version));
+	            }
+	        }
+	    }
+	    
+	    // Make built the published snapshot unless a newer one got there first
+	    private CSRGraph publish(CSRGraph built) {
+	        while (true) {
+	            CSRGraph current = snapshot.get();
+	            if (current != null && current.getVersion() >= built.getVersion()) {
+	                return current;
+	            }
+	            if (snapshot.compareAndSet(current, built)) {
+	                return built;
+	            }
+	        }
+	    }
+	    
+	    // Called under the lock before an edit touches any map
+	    private void beginEdit() {
+	        edits++;
+	    }
+	    
+	    // Called under the lock once the edit is complete
+	    private void endEdit(boolean changed) {
+	        if (changed) {
+	            version++;
+	        }
+	        edits++;
+	    }
 	}
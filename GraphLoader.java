@@ -0,0 +1,343 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Bulk import of city extracts from two text files, read through memory-mapped
+// windows and parsed straight from the bytes:
+//   locations: id,name            or  id,name,latitude,longitude
+//   roads:     sourceId,destId,distance
+// Blank lines, '#' comments and a non-numeric header line are skipped; names
+// must not contain commas. IDs and distances are non-negative integers; a
+// negative one makes the record malformed, since every routing engine relies
+// on non-negative weights. Roads are bidirectional and a repeated road keeps
+// its last distance, as with GraphCore.addRoad. Duplicate location IDs and
+// roads to unknown locations are skipped and counted in the stats.
+public class GraphLoader {
+    // Size of each mapped window; lines never span two windows
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private Stats stats = new Stats();
+
+    // Load/throughput figures for the last load
+    public static class Stats {
+        public int locations;
+        public int roads;
+        public int skipped;
+        public long bytes;
+        public long nanos;
+
+        public double getRoadsPerSecond() {
+            return (nanos == 0) ? 0 : roads * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Loaded %,d locations and %,d roads (%.1f MB) in %,d ms, %,.0f roads/s%s",
+                    locations, roads, bytes / (1024.0 * 1024.0), nanos / 1_000_000, getRoadsPerSecond(),
+                    (skipped > 0) ? ", " + skipped + " records skipped" : "");
+        }
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    // Load into an editable graph; its frozen snapshot is ready immediately
+    public GraphCore loadGraph(Path locationsFile, Path roadsFile) throws IOException {
+        return GraphCore.fromSnapshot(loadSnapshot(locationsFile, roadsFile));
+    }
+
+    // Load straight into a CSR snapshot without building the per-road objects
+    public CSRGraph loadSnapshot(Path locationsFile, Path roadsFile) throws IOException {
+        stats = new Stats();
+        long startTime = System.nanoTime();
+
+        LocationRecords locations = new LocationRecords();
+        scan(locationsFile, locations);
+        RoadRecords roads = new RoadRecords();
+        scan(roadsFile, roads);
+
+        CSRGraph graph = build(locations, roads);
+        stats.nanos = System.nanoTime() - startTime;
+        return graph;
+    }
+
+    // Receives one line as the byte range [start, end) of a mapped window
+    private interface LineHandler {
+        void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException;
+    }
+
+    private void scan(Path file, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long lineNumber = 0;
+            stats.bytes += size;
+
+            while (position < size) {
+                int length = (int) Math.min(WINDOW, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        handler.line(buffer, lineStart, i, ++lineNumber);
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        handler.line(buffer, lineStart, length, ++lineNumber);
+                    }
+                    position = size;
+                } else if (lineStart == 0) {
+                    throw new IOException(file + ": line " + (lineNumber + 1) + " is longer than the read window");
+                } else {
+                    // Re-map from the start of the unfinished line
+                    position += lineStart;
+                }
+            }
+        }
+    }
+
+    // Parsed location records, in file order
+    private static final class LocationRecords implements LineHandler {
+        final IntList ids = new IntList(1024);
+        final List<String> names = new ArrayList<>();
+        final List<double[]> positions = new ArrayList<>();
+
+        @Override
+        public void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException {
+            end = trimLine(buffer, start, end);
+            if (isSkippable(buffer, start, end, lineNumber)) {
+                return;
+            }
+
+            int firstComma = indexOf(buffer, start, end, ',');
+            if (firstComma < 0) {
+                throw malformed("locations", lineNumber);
+            }
+            int nameEnd = end;
+            double[] position = null;
+
+            // id,name,latitude,longitude: the coordinates are the last two fields
+            int lastComma = lastIndexOf(buffer, firstComma + 1, end, ',');
+            if (lastComma > 0) {
+                int middleComma = lastIndexOf(buffer, firstComma + 1, lastComma, ',');
+                if (middleComma < 0) {
+                    throw malformed("locations", lineNumber);
+                }
+                try {
+                    position = new double[] {
+                        Double.parseDouble(decode(buffer, middleComma + 1, lastComma).trim()),
+                        Double.parseDouble(decode(buffer, lastComma + 1, end).trim())
+                    };
+                } catch (NumberFormatException e) {
+                    throw malformed("locations", lineNumber);
+                }
+                nameEnd = middleComma;
+            }
+
+            ids.add(parseInt(buffer, start, firstComma, "locations", lineNumber));
+            names.add(decode(buffer, firstComma + 1, nameEnd).trim());
+            positions.add(position);
+        }
+    }
+
+    // Parsed road records, in file order
+    private static final class RoadRecords implements LineHandler {
+        final IntList sources = new IntList(1024);
+        final IntList destinations = new IntList(1024);
+        final IntList distances = new IntList(1024);
+
+        @Override
+        public void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException {
+            end = trimLine(buffer, start, end);
+            if (isSkippable(buffer, start, end, lineNumber)) {
+                return;
+            }
+
+            int first = indexOf(buffer, start, end, ',');
+            int second = (first < 0) ? -1 : indexOf(buffer, first + 1, end, ',');
+            if (second < 0) {
+                throw malformed("roads", lineNumber);
+            }
+            sources.add(parseInt(buffer, start, first, "roads", lineNumber));
+            destinations.add(parseInt(buffer, first + 1, second, "roads", lineNumber));
+            distances.add(parseInt(buffer, second + 1, end, "roads", lineNumber));
+        }
+    }
+
+    private CSRGraph build(LocationRecords locations, RoadRecords roads) {
+        // Sort IDs, keeping the file position to find each name and drop duplicates
+        int count = locations.ids.size();
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) locations.ids.get(i) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] ids = new int[count];
+        String[] names = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int locationId = (int) (order[i] >> 32);
+            if (size > 0 && ids[size - 1] == locationId) {
+                stats.skipped++;
+                continue;
+            }
+            int record = (int) order[i];
+            double[] position = locations.positions.get(record);
+            ids[size] = locationId;
+            names[size] = locations.names.get(record);
+            latitudes[size] = (position != null) ? position[0] : Double.NaN;
+            longitudes[size] = (position != null) ? position[1] : Double.NaN;
+            size++;
+        }
+        ids = Arrays.copyOf(ids, size);
+        names = Arrays.copyOf(names, size);
+        latitudes = Arrays.copyOf(latitudes, size);
+        longitudes = Arrays.copyOf(longitudes, size);
+
+        // Map road ends to dense indices and count degrees
+        int roadCount = roads.sources.size();
+        int[] from = new int[roadCount];
+        int[] to = new int[roadCount];
+        int[] offsets = new int[size + 1];
+        for (int r = 0; r < roadCount; r++) {
+            from[r] = Arrays.binarySearch(ids, roads.sources.get(r));
+            to[r] = Arrays.binarySearch(ids, roads.destinations.get(r));
+            if (from[r] < 0 || to[r] < 0) {
+                from[r] = -1;
+                stats.skipped++;
+                continue;
+            }
+            offsets[from[r] + 1]++;
+            offsets[to[r] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // Fill both directions as (target, road number) so repeats can be merged
+        long[] slots = new long[offsets[size]];
+        int[] fill = Arrays.copyOf(offsets, size);
+        for (int r = 0; r < roadCount; r++) {
+            if (from[r] >= 0) {
+                slots[fill[from[r]]++] = ((long) to[r] << 32) | r;
+                slots[fill[to[r]]++] = ((long) from[r] << 32) | r;
+            }
+        }
+
+        // Sort each neighbour list and keep the last road to every neighbour
+        int[] targets = new int[slots.length];
+        int[] weights = new int[slots.length];
+        int edges = 0;
+        int[] compacted = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            Arrays.sort(slots, offsets[i], offsets[i + 1]);
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                boolean lastOfTarget = e + 1 == offsets[i + 1] || (slots[e + 1] >> 32) != (slots[e] >> 32);
+                if (lastOfTarget) {
+                    targets[edges] = (int) (slots[e] >> 32);
+                    weights[edges] = roads.distances.get((int) slots[e]);
+                    edges++;
+                }
+            }
+            compacted[i + 1] = edges;
+        }
+        stats.locations = size;
+        stats.roads = roadCount - countSkipped(from);
+
+        return new CSRGraph(ids, names, compacted, Arrays.copyOf(targets, edges),
+                Arrays.copyOf(weights, edges), latitudes, longitudes, 0);
+    }
+
+    private static int countSkipped(int[] from) {
+        int skipped = 0;
+        for (int index : from) {
+            if (index < 0) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    // Drop a trailing '\r' and spaces; returns the new end
+    private static int trimLine(MappedByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) == '\r' || buffer.get(end - 1) == ' ')) {
+            end--;
+        }
+        return end;
+    }
+
+    // Blank lines, comments and a header on the first line
+    private static boolean isSkippable(MappedByteBuffer buffer, int start, int end, long lineNumber) {
+        if (start == end || buffer.get(start) == '#') {
+            return true;
+        }
+        byte first = buffer.get(start);
+        return lineNumber == 1 && first != '-' && (first < '0' || first > '9');
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(MappedByteBuffer buffer, int start, int end, char c) {
+        for (int i = end - 1; i >= start; i--) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Non-negative int field; a sign, a non-digit or overflow is malformed
+    private static int parseInt(MappedByteBuffer buffer, int start, int end, String file, long lineNumber)
+            throws IOException {
+        while (start < end && buffer.get(start) == ' ') start++;
+        while (end > start && buffer.get(end - 1) == ' ') end--;
+
+        if (start == end) {
+            throw malformed(file, lineNumber);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed(file, lineNumber);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                throw malformed(file, lineNumber);
+            }
+        }
+        return (int) value;
+    }
+
+    private static String decode(MappedByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static IOException malformed(String file, long lineNumber) {
+        return new IOException("Malformed record in " + file + " file at line " + lineNumber);
+    }
+}
@@ -0,0 +1,422 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Versioned binary snapshot of a city: the CSR graph plus the AVLTree index.
+// Layout (little-endian, every section 8-byte aligned):
+//   header   magic, format version, flags, graph version, counts, string sizes
+//   graph    ids[n], offsets[n + 1], targets[m], weights[m],
+//            latitudes[n], longitudes[n] (double, only with FLAG_COORDINATES),
+//            name offsets[n + 1] into a UTF-8 name blob
+//   tree     ids[t], name offsets[t + 1] into a UTF-8 name blob
+// Files are written to a temporary sibling and renamed into place, so a crash
+// never leaves a half-written snapshot. read() maps the file and bulk-copies
+// each primitive section straight into the snapshot's arrays.
+public final class GraphSnapshotFile {
+    private static final int MAGIC = 0x53435350; // "SCSP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FLAG_COORDINATES = 1;
+    private static final int HEADER_BYTES = 64;
+
+    // Largest region mapped at once when reading a section
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private final CSRGraph graph;
+    private final int[] treeIds;
+    private final String[] treeNames;
+
+    private GraphSnapshotFile(CSRGraph graph, int[] treeIds, String[] treeNames) {
+        this.graph = graph;
+        this.treeIds = treeIds;
+        this.treeNames = treeNames;
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    // Rebuild the location index stored alongside the graph; it was written
+    // in order, so it is built bottom-up instead of one insert at a time
+    public AVLTree getLocationTree() {
+        return AVLTree.fromSorted(treeIds, treeNames);
+    }
+
+    // Write a graph snapshot and the contents of a location tree
+    public static void write(Path file, CSRGraph graph, AVLTree tree) throws IOException {
+        IntList treeIdList = new IntList(Math.max(tree.size(), 1));
+        String[] treeNames = new String[tree.size()];
+        tree.inOrder((locationId, locationName) -> {
+            treeNames[treeIdList.size()] = locationName;
+            treeIdList.add(locationId);
+        });
+        write(file, graph, treeIdList.toArray(), treeNames);
+    }
+
+    // Write a graph snapshot whose location tree mirrors the graph's locations
+    public static void write(Path file, CSRGraph graph) throws IOException {
+        write(file, graph, graph.ids, graph.names);
+    }
+
+    private static void write(Path file, CSRGraph graph, int[] treeIds, String[] treeNames) throws IOException {
+        byte[][] names = encode(graph.names);
+        byte[][] encodedTreeNames = encode(treeNames);
+        boolean coordinates = hasAnyCoordinates(graph);
+        // Name offsets are ints and a blob is mapped as one buffer
+        if (totalLength(names) > Integer.MAX_VALUE || totalLength(encodedTreeNames) > Integer.MAX_VALUE) {
+            throw new IOException("Location names are too large for a snapshot (over 2 GB)");
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SectionWriter out = new SectionWriter(channel);
+
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(coordinates ? FLAG_COORDINATES : 0);
+            out.putInt(0);
+            out.putLong(graph.getVersion());
+            out.putInt(graph.size());
+            out.putInt(graph.edgeCount());
+            out.putInt(treeIds.length);
+            out.putInt(0);
+            out.putLong(totalLength(names));
+            out.putLong(totalLength(encodedTreeNames));
+            out.align(HEADER_BYTES);
+
+            out.putInts(graph.ids);
+            out.putInts(graph.offsets);
+            out.putInts(graph.targets);
+            out.putInts(graph.weights);
+            if (coordinates) {
+                out.putDoubles(graph.latitudes);
+                out.putDoubles(graph.longitudes);
+            }
+            out.putStrings(names);
+            out.putInts(treeIds);
+            out.putStrings(encodedTreeNames);
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    // Make renames and new files in a directory durable. The rename above is
+    // only a directory entry until this; Windows cannot open a directory for
+    // syncing and persists renames itself.
+    static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!System.getProperty("os.name").startsWith("Windows")) {
+                throw e;
+            }
+        }
+    }
+
+    // Open a snapshot written by write()
+    public static GraphSnapshotFile read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not a city snapshot (too short)");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a city snapshot");
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(file + " has unsupported snapshot version " + header.getInt(4));
+            }
+            boolean coordinates = (header.getInt(8) & FLAG_COORDINATES) != 0;
+            long graphVersion = header.getLong(16);
+            int size = header.getInt(24);
+            int edges = header.getInt(28);
+            int treeSize = header.getInt(32);
+            long namesLength = header.getLong(40);
+            long treeNamesLength = header.getLong(48);
+            if (size < 0 || size == Integer.MAX_VALUE || edges < 0 || treeSize < 0 || treeSize == Integer.MAX_VALUE
+                    || namesLength < 0 || namesLength > Integer.MAX_VALUE
+                    || treeNamesLength < 0 || treeNamesLength > Integer.MAX_VALUE) {
+                throw new IOException(file + " is corrupt (negative or oversized counts)");
+            }
+            // The counts decide every allocation below, so they must describe
+            // exactly this file before anything is allocated from them
+            long expected = fileLength(coordinates, size, edges, treeSize, namesLength, treeNamesLength);
+            if (expected != channel.size()) {
+                throw new IOException(file + " is corrupt (header describes " + expected + " bytes, file has "
+                        + channel.size() + ")");
+            }
+
+            SectionReader in = new SectionReader(channel, HEADER_BYTES);
+            int[] ids = in.ints(size);
+            int[] offsets = in.ints(size + 1);
+            int[] targets = in.ints(edges);
+            int[] weights = in.ints(edges);
+            double[] latitudes;
+            double[] longitudes;
+            if (coordinates) {
+                latitudes = in.doubles(size);
+                longitudes = in.doubles(size);
+            } else {
+                latitudes = new double[size];
+                longitudes = new double[size];
+                Arrays.fill(latitudes, Double.NaN);
+                Arrays.fill(longitudes, Double.NaN);
+            }
+            String[] names = in.strings(size, namesLength, file);
+            int[] treeIds = in.ints(treeSize);
+            String[] treeNames = in.strings(treeSize, treeNamesLength, file);
+
+            // Check everything routing indexes by, so damage fails here rather
+            // than as a wrong route or an index error later
+            checkAscending(ids, file, "location IDs");
+            checkAscending(treeIds, file, "location tree");
+            if (offsets[0] != 0 || offsets[size] != edges) {
+                throw new IOException(file + " is corrupt (edge offsets do not match edge count)");
+            }
+            for (int i = 0; i < size; i++) {
+                if (offsets[i] > offsets[i + 1]) {
+                    throw new IOException(file + " is corrupt (edge offsets decrease at location " + i + ")");
+                }
+            }
+            for (int e = 0; e < edges; e++) {
+                if (targets[e] < 0 || targets[e] >= size) {
+                    throw new IOException(file + " is corrupt (road " + e + " leads to no location)");
+                }
+                if (weights[e] < 0) {
+                    throw new IOException(file + " is corrupt (road " + e + " has a negative distance)");
+                }
+            }
+            CSRGraph graph = new CSRGraph(ids, names, offsets, targets, weights, latitudes, longitudes, graphVersion);
+            return new GraphSnapshotFile(graph, treeIds, treeNames);
+        }
+    }
+
+    // Bytes write() produces for the given header counts
+    private static long fileLength(boolean coordinates, int size, int edges, int treeSize,
+                                   long namesLength, long treeNamesLength) {
+        long length = HEADER_BYTES;
+        length += aligned(4L * size) + aligned(4L * (size + 1)) + 2 * aligned(4L * edges);
+        if (coordinates) {
+            length += 2 * 8L * size;
+        }
+        length += aligned(4L * (size + 1)) + aligned(namesLength);
+        length += aligned(4L * treeSize) + aligned(4L * (treeSize + 1)) + aligned(treeNamesLength);
+        return length;
+    }
+
+    private static long aligned(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static void checkAscending(int[] ids, Path file, String section) throws IOException {
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i - 1] >= ids[i]) {
+                throw new IOException(file + " is corrupt (" + section + " out of order)");
+            }
+        }
+    }
+
+    private static boolean hasAnyCoordinates(CSRGraph graph) {
+        for (int i = 0; i < graph.size(); i++) {
+            if (graph.hasCoordinates(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[][] encode(String[] strings) {
+        byte[][] encoded = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long totalLength(byte[][] strings) {
+        long total = 0;
+        for (byte[] bytes : strings) {
+            total += bytes.length;
+        }
+        return total;
+    }
+
+    // Streams sections through one reusable direct buffer
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values) throws IOException {
+            int done = 0;
+            while (done < values.length) {
+                ensure(4);
+                int chunk = Math.min(buffer.remaining() / 4, values.length - done);
+                buffer.asIntBuffer().put(values, done, chunk);
+                buffer.position(buffer.position() + chunk * 4);
+                done += chunk;
+            }
+            align(8);
+        }
+
+        void putDoubles(double[] values) throws IOException {
+            int done = 0;
+            while (done < values.length) {
+                ensure(8);
+                int chunk = Math.min(buffer.remaining() / 8, values.length - done);
+                buffer.asDoubleBuffer().put(values, done, chunk);
+                buffer.position(buffer.position() + chunk * 8);
+                done += chunk;
+            }
+        }
+
+        // Offsets table followed by the concatenated bytes
+        void putStrings(byte[][] strings) throws IOException {
+            int offset = 0;
+            putInt(0);
+            for (byte[] bytes : strings) {
+                offset += bytes.length;
+                putInt(offset);
+            }
+            align(8);
+            for (byte[] bytes : strings) {
+                int start = 0;
+                while (start < bytes.length) {
+                    ensure(1);
+                    int chunk = Math.min(buffer.remaining(), bytes.length - start);
+                    buffer.put(bytes, start, chunk);
+                    start += chunk;
+                }
+            }
+            align(8);
+        }
+
+        // Pad with zeros up to the next multiple of alignment
+        void align(int alignment) throws IOException {
+            while ((written + buffer.position()) % alignment != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Maps sections of the file in windows and bulk-copies them out
+    private static final class SectionReader {
+        private final FileChannel channel;
+        private long position;
+
+        SectionReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        int[] ints(int count) throws IOException {
+            int[] values = new int[count];
+            int done = 0;
+            while (done < count) {
+                int chunk = (int) Math.min(count - done, MAP_WINDOW / 4);
+                map(chunk * 4L).asIntBuffer().get(values, done, chunk);
+                done += chunk;
+            }
+            align();
+            return values;
+        }
+
+        double[] doubles(int count) throws IOException {
+            double[] values = new double[count];
+            int done = 0;
+            while (done < count) {
+                int chunk = (int) Math.min(count - done, MAP_WINDOW / 8);
+                map(chunk * 8L).asDoubleBuffer().get(values, done, chunk);
+                done += chunk;
+            }
+            return values;
+        }
+
+        // Offsets must start at 0, never decrease and end at the blob length
+        // recorded in the header
+        String[] strings(int count, long blobLength, Path file) throws IOException {
+            int[] offsets = ints(count + 1);
+            if (offsets[0] != 0 || offsets[count] != blobLength) {
+                throw new IOException(file + " is corrupt (name offsets do not match name size)");
+            }
+            for (int i = 0; i < count; i++) {
+                if (offsets[i] > offsets[i + 1]) {
+                    throw new IOException(file + " is corrupt (name offsets decrease at " + i + ")");
+                }
+            }
+            String[] strings = new String[count];
+            ByteBuffer blob = map(offsets[count]);
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = offsets[i + 1] - offsets[i];
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                blob.get(offsets[i], bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            align();
+            return strings;
+        }
+
+        private MappedByteBuffer map(long bytes) throws IOException {
+            if (position + bytes > channel.size()) {
+                throw new IOException("Snapshot is truncated");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            return mapped;
+        }
+
+        private void align() {
+            position = (position + 7) & ~7L;
+        }
+    }
+}
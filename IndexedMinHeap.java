@@ -0,0 +1,132 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// 4-ary min-heap over dense node indices with decrease-key.
+// Each node appears at most once; position[] maps a node to its heap slot
+// (-1 when absent) so updates never allocate.
+final class IndexedMinHeap {
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private int[] keys;
+    private int[] position;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    // Grow to hold node indices below capacity; the heap must be empty
+    void ensureCapacity(int capacity) {
+        if (capacity > position.length) {
+            heap = new int[capacity];
+            keys = new int[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int node) {
+        return position[node] >= 0;
+    }
+
+    int minKey() {
+        return keys[0];
+    }
+
+    int minNode() {
+        return heap[0];
+    }
+
+    // Insert a node, or lower its key if it is already queued with a larger one
+    void push(int node, int key) {
+        int slot = position[node];
+        if (slot < 0) {
+            slot = size++;
+        } else if (key >= keys[slot]) {
+            return;
+        }
+        siftUp(slot, node, key);
+    }
+
+    // Insert a node or move it to a new key, higher or lower
+    void update(int node, int key) {
+        int slot = position[node];
+        if (slot < 0 || key < keys[slot]) {
+            push(node, key);
+        } else {
+            siftDown(slot, node, key);
+        }
+    }
+
+    // Remove and return the node with the smallest key
+    int pop() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size], keys[size]);
+        }
+        return top;
+    }
+
+    // Drop all queued nodes in O(size)
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot, int node, int key) {
+        while (slot > 0) {
+            int parent = (slot - 1) / ARITY;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(slot, heap[parent], keys[parent]);
+            slot = parent;
+        }
+        place(slot, node, key);
+    }
+
+    private void siftDown(int slot, int node, int key) {
+        while (true) {
+            int first = slot * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, size);
+            int best = first;
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            place(slot, heap[best], keys[best]);
+            slot = best;
+        }
+        place(slot, node, key);
+    }
+
+    private void place(int slot, int node, int key) {
+        heap[slot] = node;
+        keys[slot] = key;
+        position[node] = slot;
+    }
+}
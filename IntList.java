@@ -0,0 +1,57 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints, used where boxing into List<Integer> would
+// dominate (path unpacking, bulk loading, adjacency under construction)
+final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(8);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int i) {
+        return values[i];
+    }
+
+    void set(int i, int value) {
+        values[i] = value;
+    }
+
+    int pop() {
+        return values[--size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
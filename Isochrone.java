@@ -0,0 +1,101 @@
+package Smart_City_Route;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Every location reachable from an origin within a distance budget (a service
+// area), e.g. everything within 20 km of City Hall by road. One search per
+// origin that never queues a node beyond the budget, so its cost depends on
+// the size of the area rather than the city. Results are two parallel
+// primitive arrays of location IDs and road distances, in the order the
+// search reached them; the origin is first, at distance 0.
+// Many origins are spread over a fork-join pool, each worker reusing an
+// engine of its own.
+public final class Isochrone {
+    private static final int[] NONE = new int[0];
+
+    // Not ShortestPathEngine.current(): the pool may run an origin on the
+    // calling thread, which must keep the state of its own last query
+    private static final ThreadLocal<ShortestPathEngine> ORIGIN_ENGINES =
+            ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    private final int originId;
+    private final int budget;
+    private final int[] locationIds;
+    private final int[] distances;
+
+    private Isochrone(int originId, int budget, int[] locationIds, int[] distances) {
+        this.originId = originId;
+        this.budget = budget;
+        this.locationIds = locationIds;
+        this.distances = distances;
+    }
+
+    // Locations within budget of one origin; empty if the origin is unknown
+    public static Isochrone compute(CSRGraph graph, int originId, int budget) {
+        return compute(graph, originId, budget, ShortestPathEngine.current());
+    }
+
+    private static Isochrone compute(CSRGraph graph, int originId, int budget, ShortestPathEngine engine) {
+        int origin = graph.indexOf(originId);
+        if (origin < 0) {
+            return new Isochrone(originId, budget, NONE, NONE);
+        }
+
+        int reached = engine.withinBudget(graph, origin, budget);
+        int[] locationIds = new int[reached];
+        int[] distances = new int[reached];
+        for (int i = 0; i < reached; i++) {
+            int node = engine.reachedAt(i);
+            locationIds[i] = graph.idAt(node);
+            distances[i] = engine.distanceTo(node);
+        }
+        return new Isochrone(originId, budget, locationIds, distances);
+    }
+
+    // Convenience for a live graph: computed on its current snapshot
+    public static Isochrone compute(GraphCore graph, int originId, int budget) {
+        return compute(graph.freeze(), originId, budget);
+    }
+
+    // One isochrone per origin, in origin order, on the common fork-join pool
+    public static Isochrone[] computeAll(CSRGraph graph, int[] originIds, int budget) {
+        return computeAll(graph, originIds, budget, ForkJoinPool.commonPool());
+    }
+
+    // Same on a pool of the caller's choosing
+    public static Isochrone[] computeAll(CSRGraph graph, int[] originIds, int budget, ForkJoinPool pool) {
+        Isochrone[] isochrones = new Isochrone[originIds.length];
+        ParallelLoop.forEach(pool, originIds.length, i -> isochrones[i] = compute(graph, originIds[i], budget, ORIGIN_ENGINES.get()));
+        return isochrones;
+    }
+
+    public int getOriginId() {
+        return originId;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    // Number of locations reached, the origin included
+    public int size() {
+        return locationIds.length;
+    }
+
+    public int getLocationId(int i) {
+        return locationIds[i];
+    }
+
+    public int getDistance(int i) {
+        return distances[i];
+    }
+
+    // Copies of the reached location IDs and their distances, index for index
+    public int[] getLocationIds() {
+        return locationIds.clone();
+    }
+
+    public int[] getDistances() {
+        return distances.clone();
+    }
+}
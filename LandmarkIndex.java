@@ -0,0 +1,185 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// ALT (A*, Landmarks, Triangle inequality) index over a CSRGraph snapshot.
+// For a handful of landmark locations L the exact distance d(L, v) to every
+// node is precomputed; since roads are symmetric, |d(L, t) - d(L, v)| is a
+// consistent lower bound on d(v, t) and the largest one over all landmarks
+// steers A* towards the target.
+// Tables are one flat int array, node-major (table[node * k + landmark]) so a
+// bound reads k adjacent ints. The index is immutable; rebuild() it for a new
+// snapshot after addRoad/removeRoad, which recomputes the tables in parallel.
+// Building runs its searches in engines of its own, so the caller's
+// ShortestPathEngine.current() keeps the state of its last query.
+public final class LandmarkIndex implements DistanceHeuristic {
+    // Not ShortestPathEngine.current(): a fork-join pool may run a table task
+    // on the thread that started the build
+    private static final ThreadLocal<ShortestPathEngine> BUILD_ENGINES =
+            ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    private final CSRGraph graph;
+    private final int[] landmarks;
+    private final int[] table;
+
+    private LandmarkIndex(CSRGraph graph, int[] landmarks, int[] table) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.table = table;
+    }
+
+    // Pick up to count landmarks by the farthest-point heuristic and build the
+    // tables on the common fork-join pool
+    public static LandmarkIndex build(CSRGraph graph, int count) {
+        return build(graph, count, ForkJoinPool.commonPool());
+    }
+
+    // Same on a pool of the caller's choosing
+    public static LandmarkIndex build(CSRGraph graph, int count, ForkJoinPool pool) {
+        int[] landmarks = selectFarthest(graph, new int[0], Math.min(count, graph.size()));
+        return new LandmarkIndex(graph, landmarks, computeTables(graph, landmarks, pool));
+    }
+
+    // Index for a newer snapshot of the same city. Landmarks that still exist are
+    // kept so the bounds stay comparable; removed ones are replaced.
+    public LandmarkIndex rebuild(CSRGraph newGraph) {
+        return rebuild(newGraph, ForkJoinPool.commonPool());
+    }
+
+    public LandmarkIndex rebuild(CSRGraph newGraph, ForkJoinPool pool) {
+        int[] kept = new int[landmarks.length];
+        int keptCount = 0;
+        for (int landmark : landmarks) {
+            int index = newGraph.indexOf(graph.idAt(landmark));
+            if (index >= 0) {
+                kept[keptCount++] = index;
+            }
+        }
+        int count = Math.min(landmarks.length, newGraph.size());
+        int[] selected = selectFarthest(newGraph, Arrays.copyOf(kept, keptCount), count);
+        return new LandmarkIndex(newGraph, selected, computeTables(newGraph, selected, pool));
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    // Location IDs of the landmarks
+    public int[] getLandmarkIds() {
+        int[] ids = new int[landmarks.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.idAt(landmarks[i]);
+        }
+        return ids;
+    }
+
+    // ALT query between two location IDs on this index's snapshot
+    public RouteResult findShortestPath(int startId, int endId) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return RouteResult.unreachable();
+        }
+
+        ShortestPathEngine engine = ShortestPathEngine.current();
+        int distance = engine.aStar(graph, start, end, this);
+        return RouteResult.fromEngine(graph, engine, distance);
+    }
+
+    @Override
+    public int lowerBound(int node, int target) {
+        int k = landmarks.length;
+        int nodeBase = node * k;
+        int targetBase = target * k;
+        int best = 0;
+        for (int i = 0; i < k; i++) {
+            int toNode = table[nodeBase + i];
+            int toTarget = table[targetBase + i];
+            if (toNode == ShortestPathEngine.UNREACHABLE || toTarget == ShortestPathEngine.UNREACHABLE) {
+                // Different components: any bound is valid, as long as it is the
+                // same for every node of the component
+                if (toNode != toTarget) {
+                    return ShortestPathEngine.UNREACHABLE;
+                }
+                continue;
+            }
+            int bound = Math.abs(toTarget - toNode);
+            if (bound > best) {
+                best = bound;
+            }
+        }
+        return best;
+    }
+
+    // Extend the chosen landmarks to count nodes, each time taking the node
+    // farthest from all landmarks so far (nodes no landmark reaches come first)
+    private static int[] selectFarthest(CSRGraph graph, int[] chosen, int count) {
+        int[] landmarks = Arrays.copyOf(chosen, Math.max(count, chosen.length));
+        int selected = chosen.length;
+        if (graph.size() == 0 || selected >= count) {
+            return Arrays.copyOf(landmarks, Math.min(selected, count));
+        }
+
+        int[] nearest = new int[graph.size()];
+        Arrays.fill(nearest, ShortestPathEngine.UNREACHABLE);
+        ShortestPathEngine engine = BUILD_ENGINES.get();
+        for (int i = 0; i < selected; i++) {
+            mergeNearest(engine, graph, landmarks[i], nearest);
+        }
+
+        // Without earlier landmarks, start from the node farthest from index 0
+        if (selected == 0) {
+            engine.singleSource(graph, 0);
+            int farthest = 0;
+            for (int i = 0; i < engine.reachedCount(); i++) {
+                int node = engine.reachedAt(i);
+                if (engine.distanceTo(node) > engine.distanceTo(farthest)) {
+                    farthest = node;
+                }
+            }
+            landmarks[selected++] = farthest;
+            mergeNearest(engine, graph, farthest, nearest);
+        }
+
+        while (selected < count) {
+            int farthest = -1;
+            for (int node = 0; node < nearest.length; node++) {
+                if (nearest[node] != 0 && (farthest < 0 || nearest[node] > nearest[farthest])) {
+                    farthest = node;
+                }
+            }
+            if (farthest < 0) {
+                break;
+            }
+            landmarks[selected++] = farthest;
+            mergeNearest(engine, graph, farthest, nearest);
+        }
+        return Arrays.copyOf(landmarks, selected);
+    }
+
+    private static void mergeNearest(ShortestPathEngine engine, CSRGraph graph, int landmark, int[] nearest) {
+        engine.singleSource(graph, landmark);
+        for (int i = 0; i < engine.reachedCount(); i++) {
+            int node = engine.reachedAt(i);
+            nearest[node] = Math.min(nearest[node], engine.distanceTo(node));
+        }
+    }
+
+    // One full Dijkstra per landmark, run in parallel on the pool
+    private static int[] computeTables(CSRGraph graph, int[] landmarks, ForkJoinPool pool) {
+        int k = landmarks.length;
+        int[] table = new int[graph.size() * k];
+        Arrays.fill(table, ShortestPathEngine.UNREACHABLE);
+
+        ParallelLoop.forEach(pool, k, i -> {
+            ShortestPathEngine engine = BUILD_ENGINES.get();
+            engine.singleSource(graph, landmarks[i]);
+            for (int r = 0; r < engine.reachedCount(); r++) {
+                int node = engine.reachedAt(r);
+                table[node * k + i] = engine.distanceTo(node);
+            }
+        });
+        return table;
+    }
+}
@@ -0,0 +1,25 @@
+package Smart_City_Route;
+
+// Ordered location index keyed by ID: the insert/delete/search contract shared
+// by AVLTree and BPlusTree
+public interface LocationIndex {
+    // Callback for in-order walks over the stored locations
+    interface Visitor {
+        void visit(int locationId, String locationName);
+    }
+
+    // Add a location, or rename it if the ID is already present
+    void insert(int locationId, String locationName);
+
+    // Remove a location; unknown IDs are ignored
+    void delete(int locationId);
+
+    // Name of a location, or null if the ID is not present
+    String search(int locationId);
+
+    // Number of locations in the index
+    int size();
+
+    // Visit every location in ascending ID order
+    void inOrder(Visitor visitor);
+}
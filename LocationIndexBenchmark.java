@@ -0,0 +1,67 @@
+package Smart_City_Route;
+
+import java.util.Random;
+
+// Compares AVLTree and BPlusTree on random inserts, lookups and deletes.
+// Usage: LocationIndexBenchmark [locations] [rounds]
+// Each round times both indexes on the same shuffled IDs; the first rounds
+// warm up the JIT, so read the last ones.
+public class LocationIndexBenchmark {
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i * 7 + 1;
+        }
+        Random random = new Random(42);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "Location " + ids[i];
+        }
+
+        System.out.printf("%,d locations, %d rounds (times in ms)%n", count, rounds);
+        for (int round = 1; round <= rounds; round++) {
+            run("AVLTree  ", new AVLTree(), ids, names, round);
+            run("BPlusTree", new BPlusTree(), ids, names, round);
+        }
+    }
+
+    private static void run(String label, LocationIndex index, int[] ids, String[] names, int round) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) {
+            index.insert(ids[i], names[i]);
+        }
+        long inserted = System.nanoTime();
+
+        int found = 0;
+        for (int i = ids.length - 1; i >= 0; i--) {
+            if (index.search(ids[i]) != null) {
+                found++;
+            }
+            // Misses between the stored IDs
+            if (index.search(ids[i] + 3) != null) {
+                found--;
+            }
+        }
+        long searched = System.nanoTime();
+
+        for (int i = 0; i < ids.length; i += 2) {
+            index.delete(ids[i]);
+        }
+        long deleted = System.nanoTime();
+
+        if (found != ids.length || index.size() != ids.length / 2) {
+            throw new IllegalStateException(label.trim() + " returned wrong results");
+        }
+        System.out.printf("round %d  %s  insert %6d  search %6d  delete %6d%n", round, label,
+                (inserted - start) / 1_000_000, (searched - inserted) / 1_000_000, (deleted - searched) / 1_000_000);
+    }
+}
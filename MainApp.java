@@ -1,11 +1,19 @@
 package Smart_City_Route;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class MainApp { 
     private GraphCore cityGraph;
     private AVLTree locationTree;
     private Scanner scanner;
+    private String loadReport;
+    private MutationLog mutationLog;
+    private boolean journalFailureReported;
+    private RouteCache routeCache;
     
     // ANSI color codes for better UI
     private static final String RESET = "\u001B[0m";
@@ -16,6 +24,15 @@ public class MainApp {
     private static final String CYAN = "\u001B[36m";
     private static final String BOLD = "\u001B[1m";
     
+    // How long the mutation log lets edits gather before one fsync
+    private static final long COMMIT_INTERVAL_MILLIS = 5;
+    
+    // Path entries the route cache may hold across all cached routes
+    private static final long ROUTE_CACHE_WEIGHT = 1_000_000;
+    
+    // Most matches listed for a name search
+    private static final int NAME_SEARCH_LIMIT = 10;
+    
     public MainApp() {
         this.cityGraph = new GraphCore();
         this.locationTree = new AVLTree();
@@ -23,15 +40,40 @@ public class MainApp {
         loadSampleData(); // Load sample data for better demonstration
     }
     
+    // Start with a city extract loaded from files instead of the sample data
+    public MainApp(Path locationsFile, Path roadsFile) {
+        this.locationTree = new AVLTree();
+        this.scanner = new Scanner(System.in);
+        
+        GraphLoader loader = new GraphLoader();
+        try {
+            this.cityGraph = loader.loadGraph(locationsFile, roadsFile);
+            CSRGraph snapshot = cityGraph.freeze();
+            locationTree = AVLTree.fromSorted(snapshot.ids, snapshot.names);
+            loadReport = GREEN + "✅ " + loader.getStats() + RESET;
+        } catch (IOException e) {
+            loadReport = RED + "❌ Could not load city data: " + e.getMessage() + " - using sample data" + RESET;
+            this.cityGraph = new GraphCore();
+            loadSampleData();
+        }
+    }
+    
     public void start() {
+        routeCache = new RouteCache(cityGraph, ROUTE_CACHE_WEIGHT);
         clearScreen();
         printWelcomeBanner();
         
+        if (loadReport != null) {
+            System.out.println(loadReport);
+            System.out.println();
+        }
+        
         while (true) {
             displayMenu();
             int choice = getValidatedInput(1, 11);
             clearScreen();
             processChoice(choice);
+            reportJournalFailure();
             
             if (choice != 11) {
                 pauseForUser();
@@ -39,6 +81,47 @@ public class MainApp {
         }
     }
     
+    // Start from a binary snapshot written by GraphSnapshotFile, or from a data
+    // directory whose edits are journaled by a MutationLog
+    public MainApp(Path snapshotFile) {
+        this.scanner = new Scanner(System.in);
+        
+        if (Files.isDirectory(snapshotFile)) {
+            openDataDirectory(snapshotFile);
+            return;
+        }
+        
+        try {
+            long startTime = System.nanoTime();
+            GraphSnapshotFile snapshot = GraphSnapshotFile.read(snapshotFile);
+            this.cityGraph = GraphCore.fromSnapshot(snapshot.getGraph());
+            this.locationTree = snapshot.getLocationTree();
+            loadReport = GREEN + "✅ Opened snapshot with " + cityGraph.getLocations().size() + " locations in " +
+                         (System.nanoTime() - startTime) / 1_000_000 + " ms" + RESET;
+        } catch (IOException e) {
+            loadReport = RED + "❌ Could not open snapshot: " + e.getMessage() + " - using sample data" + RESET;
+            this.cityGraph = new GraphCore();
+            this.locationTree = new AVLTree();
+            loadSampleData();
+        }
+    }
+    
+    private void openDataDirectory(Path directory) {
+        try {
+            MutationLog.Recovery recovery = MutationLog.recover(directory);
+            this.cityGraph = recovery.getGraph();
+            this.locationTree = recovery.getLocationTree();
+            this.mutationLog = MutationLog.open(directory, cityGraph, COMMIT_INTERVAL_MILLIS);
+            loadReport = GREEN + "✅ Recovered " + cityGraph.getLocations().size() + " locations (" +
+                         recovery.getReplayedEdits() + " edits replayed from the log)" + RESET;
+        } catch (IOException e) {
+            loadReport = RED + "❌ Could not open data directory: " + e.getMessage() + " - using sample data" + RESET;
+            this.cityGraph = new GraphCore();
+            this.locationTree = new AVLTree();
+            loadSampleData();
+        }
+    }
+    
     private void printWelcomeBanner() {
         System.out.println(CYAN + "╔════════════════════════════════════════════════════════════╗");
         System.out.println("║                                                            ║");
@@ -94,6 +177,57 @@ public class MainApp {
         }
     }
     
+    // A location ID, or a GPS position snapped to the nearest placed location.
+    // Returns -1 when nothing has coordinates to snap to.
+    private int getLocationOrPosition() {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            String[] parts = input.split(",");
+            try {
+                if (parts.length == 1) {
+                    int locationId = Integer.parseInt(input);
+                    if (locationId >= 0) {
+                        return locationId;
+                    }
+                } else if (parts.length == 2) {
+                    double latitude = Double.parseDouble(parts[0].trim());
+                    double longitude = Double.parseDouble(parts[1].trim());
+                    if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                        return snapToLocation(latitude, longitude);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the prompt below
+            }
+            System.out.print(RED + "❌ Please enter an ID or latitude,longitude: " + RESET);
+        }
+    }
+    
+    private int snapToLocation(double latitude, double longitude) {
+        SpatialIndex spatialIndex = cityGraph.freeze().spatialIndex();
+        int locationId = spatialIndex.snap(latitude, longitude);
+        if (locationId < 0) {
+            System.out.println(YELLOW + "⚠️  No locations have coordinates to snap to!" + RESET);
+        } else {
+            System.out.printf(CYAN + "📌 Nearest location: %s (ID: %d), %.2f km away%n" + RESET,
+                    cityGraph.getLocationName(locationId), locationId,
+                    spatialIndex.distanceKm(latitude, longitude, locationId));
+        }
+        return locationId;
+    }
+    
+    // Edits are journaled in the background; say so once if that has stopped
+    private void reportJournalFailure() {
+        if (mutationLog == null || journalFailureReported) {
+            return;
+        }
+        IOException failure = mutationLog.getFailure();
+        if (failure != null) {
+            journalFailureReported = true;
+            System.out.println(RED + "\n❌ Changes are no longer being saved: " + failure.getMessage() + RESET);
+        }
+    }
+    
     private void processChoice(int choice) {
         switch (choice) {
             case 1: addLocation(); break;
@@ -160,9 +294,38 @@ public class MainApp {
     private void searchLocation() {
         printSectionHeader("🔍 SEARCH LOCATION");
         
-        System.out.print("Enter location ID to search: ");
-        int locationId = getValidatedInput(0, Integer.MAX_VALUE);
+        System.out.print("Enter location ID or name: ");
+        String query = scanner.nextLine().trim();
+        
+        if (query.isEmpty()) {
+            System.out.println(RED + "\n❌ Error: Search text cannot be empty!" + RESET);
+            return;
+        }
         
+        try {
+            searchLocationById(Integer.parseInt(query));
+            return;
+        } catch (NumberFormatException e) {
+            // Not an ID, so search by name
+        }
+        
+        // Names starting with the query, else names within two typos of it
+        int[] matches = locationTree.getNameIndex().findByPrefix(query, NAME_SEARCH_LIMIT);
+        if (matches.length == 0) {
+            matches = locationTree.getNameIndex().findSimilar(query, 2, NAME_SEARCH_LIMIT);
+        }
+        
+        if (matches.length == 0) {
+            System.out.println(RED + "\n❌ No location matches \"" + query + "\"!" + RESET);
+            return;
+        }
+        System.out.println(GREEN + "\n✅ Matching locations:" + RESET);
+        for (int locationId : matches) {
+            System.out.println("   " + locationTree.search(locationId) + " (ID: " + locationId + ")");
+        }
+    }
+    
+    private void searchLocationById(int locationId) {
         String locationName = locationTree.search(locationId);
         
         if (locationName != null) {
@@ -245,14 +408,45 @@ public class MainApp {
         System.out.println("Available locations:");
         displayLocationList();
         
-        System.out.print("\nEnter start location ID: ");
-        int startId = getValidatedInput(0, Integer.MAX_VALUE);
+        System.out.print("\nEnter start location ID or latitude,longitude: ");
+        int startId = getLocationOrPosition();
         
-        System.out.print("Enter destination location ID: ");
-        int endId = getValidatedInput(0, Integer.MAX_VALUE);
+        System.out.print("Enter destination location ID or latitude,longitude: ");
+        int endId = getLocationOrPosition();
         
         System.out.println();
-        GraphAlgorithms.findShortestPath(cityGraph, startId, endId);
+        
+        if (!cityGraph.containsLocation(startId) || !cityGraph.containsLocation(endId)) {
+            System.out.println("One or both locations not found!");
+            return;
+        }
+        
+        if (startId == endId) {
+            System.out.println("Start and end locations are the same!");
+            return;
+        }
+        
+        RouteResult route = routeCache.findShortestPath(startId, endId);
+        printRoute(route, startId, endId);
+    }
+    
+    private void printRoute(RouteResult route, int startId, int endId) {
+        if (!route.isFound()) {
+            System.out.println("No path exists between " + cityGraph.getLocationName(startId) + 
+                             " and " + cityGraph.getLocationName(endId));
+            return;
+        }
+        
+        System.out.println("Shortest path from " + cityGraph.getLocationName(startId) + 
+                         " to " + cityGraph.getLocationName(endId) + ":");
+        System.out.println("Total distance: " + route.getTotalDistance());
+        
+        for (int i = 0; i < route.getPathLength(); i++) {
+            int locationId = route.getLocationAt(i);
+            if (i > 0) System.out.print(" -> ");
+            System.out.print(cityGraph.getLocationName(locationId) + " (" + locationId + ")");
+        }
+        System.out.println();
     }
     
     private void bfsTraversal() {
@@ -265,7 +459,14 @@ public class MainApp {
         int startId = getValidatedInput(0, Integer.MAX_VALUE);
         
         System.out.println();
-        GraphAlgorithms.bfsTraversal(cityGraph, startId);
+        
+        if (!cityGraph.containsLocation(startId)) {
+            System.out.println("Start location not found!");
+            return;
+        }
+        
+        System.out.println("BFS Traversal starting from " + cityGraph.getLocationName(startId) + ":");
+        printTraversal(GraphAlgorithms.bfsTraversal(cityGraph, startId));
     }
     
     private void dfsTraversal() {
@@ -278,7 +479,21 @@ public class MainApp {
         int startId = getValidatedInput(0, Integer.MAX_VALUE);
         
         System.out.println();
-        GraphAlgorithms.dfsTraversal(cityGraph, startId);
+        
+        if (!cityGraph.containsLocation(startId)) {
+            System.out.println("Start location not found!");
+            return;
+        }
+        
+        System.out.println("DFS Traversal starting from " + cityGraph.getLocationName(startId) + ":");
+        printTraversal(GraphAlgorithms.dfsTraversal(cityGraph, startId));
+    }
+    
+    private void printTraversal(int[] order) {
+        for (int locationId : order) {
+            System.out.print(cityGraph.getLocationName(locationId) + " ");
+        }
+        System.out.println();
     }
     
     private void displayLocationList() {
@@ -326,20 +541,20 @@ public class MainApp {
     }
     
     private void loadSampleData() {
-        // Add sample locations
-        cityGraph.addLocation(1, "City Hall");
+        // Add sample locations (with coordinates for A* routing)
+        cityGraph.addLocation(1, "City Hall", 6.9271, 79.8612);
         locationTree.insert(1, "City Hall");
         
-        cityGraph.addLocation(2, "Central Park");
+        cityGraph.addLocation(2, "Central Park", 6.9271, 79.8974);
         locationTree.insert(2, "Central Park");
         
-        cityGraph.addLocation(3, "Shopping Mall");
+        cityGraph.addLocation(3, "Shopping Mall", 6.9497, 79.8974);
         locationTree.insert(3, "Shopping Mall");
         
-        cityGraph.addLocation(4, "Airport");
+        cityGraph.addLocation(4, "Airport", 6.8095, 79.8974);
         locationTree.insert(4, "Airport");
         
-        cityGraph.addLocation(5, "Train Station");
+        cityGraph.addLocation(5, "Train Station", 6.9090, 79.9336);
         locationTree.insert(5, "Train Station");
         
         // Add sample roads
@@ -360,11 +575,28 @@ public class MainApp {
         System.out.println(CYAN + "║                                                            ║" + RESET);
         System.out.println(CYAN + "╚════════════════════════════════════════════════════════════╝" + RESET);
         scanner.close();
+        if (mutationLog != null) {
+            try {
+                // Fold the journal into a fresh snapshot so the next start is fast
+                mutationLog.compact().join();
+                mutationLog.close();
+            } catch (Exception e) {
+                System.out.println(RED + "❌ Could not save city data: " + e.getMessage() + RESET);
+            }
+        }
         System.exit(0);
     }
     
+    // Usage: MainApp [locations.csv roads.csv | city.snapshot | data directory]
     public static void main(String[] args) {
-        MainApp app = new MainApp();
+        MainApp app;
+        if (args.length >= 2) {
+            app = new MainApp(Paths.get(args[0]), Paths.get(args[1]));
+        } else if (args.length == 1) {
+            app = new MainApp(Paths.get(args[0]));
+        } else {
+            app = new MainApp();
+        }
         app.start();
     }
 }
@@ -0,0 +1,561 @@
+package Smart_City_Route;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+// Write-ahead log of GraphCore edits, kept in a data directory next to the
+// latest GraphSnapshotFile ("city.snapshot") as numbered segment files.
+//
+// Every record carries the graph version its edit produced, framed as
+// [payload length][CRC32][payload]. Recovery loads the snapshot and replays
+// only records newer than the snapshot's version, so a crash at any point
+// (torn tail, compaction half done) replays each edit exactly once; a torn or
+// corrupt record ends the log and everything after it is discarded.
+//
+// Appends only copy the record into a buffer. A background thread writes and
+// fsyncs whatever has accumulated (group commit), so a burst of road
+// closures costs one fsync; sync() waits until all earlier edits are durable.
+// compact() writes a new snapshot from an immutable CSR view and then drops
+// the folded segments, without holding up routing queries.
+// Once a write fails the log stops buffering and drops later edits; the
+// failure is thrown by sync() and close() and reported by getFailure().
+// Listener callbacks never throw: the edit is already applied by then, and
+// other listeners still have to hear about it.
+public final class MutationLog implements GraphCore.ChangeListener, Closeable {
+    public static final String SNAPSHOT_FILE = "city.snapshot";
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte ADD_LOCATION = 1;
+    private static final byte REMOVE_LOCATION = 2;
+    private static final byte SET_COORDINATES = 3;
+    private static final byte ADD_ROAD = 4;
+    private static final byte REMOVE_ROAD = 5;
+
+    // Recovery reads segments through a buffer of this size, grown only to
+    // hold a single larger record
+    private static final int READ_CHUNK = 1 << 20;
+
+    private final Path directory;
+    private final GraphCore graph;
+    private final long commitIntervalMillis;
+
+    // Guarded by this: framed records not yet handed to the flusher
+    private ByteBuffer pending = newBuffer(64 * 1024);
+    private ByteBuffer scratch = newBuffer(256);
+    private long appended;
+    private long durable;
+    private boolean closed;
+    private IOException failure;
+
+    private final Object segmentLock = new Object();
+    private FileChannel segment;
+    private long segmentNumber;
+    private final Thread flusher;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mutation-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Result of recover(): the graph and location tree as of the last durable edit
+    public static class Recovery {
+        private final GraphCore graph;
+        private final AVLTree locationTree;
+        private final int replayedEdits;
+
+        Recovery(GraphCore graph, AVLTree locationTree, int replayedEdits) {
+            this.graph = graph;
+            this.locationTree = locationTree;
+            this.replayedEdits = replayedEdits;
+        }
+
+        public GraphCore getGraph() {
+            return graph;
+        }
+
+        public AVLTree getLocationTree() {
+            return locationTree;
+        }
+
+        public int getReplayedEdits() {
+            return replayedEdits;
+        }
+    }
+
+    // Rebuild the city from the directory's snapshot plus its log segments
+    public static Recovery recover(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+
+        GraphCore graph;
+        AVLTree tree;
+        if (Files.exists(snapshotFile)) {
+            GraphSnapshotFile snapshot = GraphSnapshotFile.read(snapshotFile);
+            graph = GraphCore.fromSnapshot(snapshot.getGraph());
+            tree = snapshot.getLocationTree();
+        } else {
+            graph = new GraphCore();
+            tree = new AVLTree();
+        }
+
+        int replayed = 0;
+        boolean corrupt = false;
+        for (Path file : listSegments(directory)) {
+            if (corrupt) {
+                // Edits after a damaged record cannot be applied in order
+                Files.delete(file);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                SegmentReplay replay = new SegmentReplay(channel);
+                replay.run(graph, tree);
+                replayed += replay.applied;
+                if (replay.validBytes < channel.size()) {
+                    channel.truncate(replay.validBytes);
+                    channel.force(true);
+                    corrupt = true;
+                }
+            }
+        }
+        return new Recovery(graph, tree, replayed);
+    }
+
+    // Replays one segment in bounded chunks, so segments of any length (they
+    // only rotate on compact()) recover in constant memory
+    private static final class SegmentReplay {
+        private final FileChannel channel;
+        // Edits applied, and the length of the segment's intact prefix
+        int applied;
+        long validBytes;
+
+        SegmentReplay(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void run(GraphCore graph, AVLTree tree) throws IOException {
+            long size = channel.size();
+            long readTo = 0;
+            ByteBuffer data = newBuffer(READ_CHUNK);
+            data.flip();
+            while (true) {
+                int needed = 8;
+                if (data.remaining() >= 8) {
+                    int length = data.getInt(data.position());
+                    // A length past the end of the file is a torn or damaged record
+                    if (length < 9 || length > size - validBytes - 8) {
+                        return;
+                    }
+                    needed = 8 + length;
+                    if (data.remaining() >= needed) {
+                        ByteBuffer payload = nextRecord(data);
+                        if (payload == null) {
+                            return;
+                        }
+                        applied += apply(payload, graph, tree) ? 1 : 0;
+                        validBytes += needed;
+                        continue;
+                    }
+                }
+
+                if (readTo == size) {
+                    return;
+                }
+                data.compact();
+                if (data.capacity() < needed) {
+                    ByteBuffer larger = newBuffer(needed);
+                    data.flip();
+                    larger.put(data);
+                    data = larger;
+                }
+                int read = channel.read(data, readTo);
+                data.flip();
+                if (read < 0) {
+                    return;
+                }
+                readTo += read;
+            }
+        }
+    }
+
+    // Start logging a recovered graph's edits into a fresh segment
+    public static MutationLog open(Path directory, GraphCore graph, long commitIntervalMillis) throws IOException {
+        MutationLog log = new MutationLog(directory, graph, commitIntervalMillis);
+        graph.addChangeListener(log);
+        return log;
+    }
+
+    private MutationLog(Path directory, GraphCore graph, long commitIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.graph = graph;
+        this.commitIntervalMillis = commitIntervalMillis;
+
+        List<Path> existing = listSegments(directory);
+        segmentNumber = existing.isEmpty() ? 1 : segmentNumberOf(existing.get(existing.size() - 1)) + 1;
+        segment = openSegment(segmentNumber);
+
+        flusher = new Thread(this::flushLoop, "mutation-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Block until every edit logged so far is on disk
+    public void sync() throws IOException {
+        synchronized (this) {
+            long target = appended;
+            notifyAll();
+            while (durable < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the mutation log", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // Fold the log into a new snapshot in the background. Writers pause only
+    // while the segment is rotated; queries keep running on their snapshots.
+    public CompletableFuture<Void> compact() {
+        CSRGraph snapshot;
+        long folded;
+        synchronized (graph) {
+            snapshot = graph.freeze();
+            try {
+                folded = rotateSegment();
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                // write() syncs the directory after its rename, so the new
+                // snapshot survives a power loss before the segments go
+                GraphSnapshotFile.write(directory.resolve(SNAPSHOT_FILE), snapshot);
+                for (Path file : listSegments(directory)) {
+                    if (segmentNumberOf(file) <= folded) {
+                        Files.delete(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, compactor);
+    }
+
+    // The write failure that stopped the log, or null while it is healthy
+    public synchronized IOException getFailure() {
+        return failure;
+    }
+
+    // Flush outstanding edits and stop logging
+    @Override
+    public void close() throws IOException {
+        // Under the graph's lock, so no edit can still be on its way to append()
+        synchronized (graph) {
+            graph.removeChangeListener(this);
+        }
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor.shutdown();
+        synchronized (segmentLock) {
+            segment.close();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // ChangeListener callbacks run under the graph's lock, in edit order
+
+    @Override
+    public void locationAdded(int locationId, String locationName, GraphCore.Coordinates coordinates) {
+        byte[] name = locationName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = begin(ADD_LOCATION, 4 + 1 + 16 + 4 + name.length);
+        record.putInt(locationId);
+        record.put((byte) (coordinates != null ? 1 : 0));
+        if (coordinates != null) {
+            record.putDouble(coordinates.latitude);
+            record.putDouble(coordinates.longitude);
+        }
+        record.putInt(name.length);
+        record.put(name);
+        append(record);
+    }
+
+    @Override
+    public void locationRemoved(int locationId) {
+        ByteBuffer record = begin(REMOVE_LOCATION, 4);
+        record.putInt(locationId);
+        append(record);
+    }
+
+    @Override
+    public void coordinatesChanged(int locationId, GraphCore.Coordinates coordinates) {
+        ByteBuffer record = begin(SET_COORDINATES, 20);
+        record.putInt(locationId);
+        record.putDouble(coordinates.latitude);
+        record.putDouble(coordinates.longitude);
+        append(record);
+    }
+
+    @Override
+    public void roadAdded(int sourceId, int destId, int distance) {
+        ByteBuffer record = begin(ADD_ROAD, 12);
+        record.putInt(sourceId);
+        record.putInt(destId);
+        record.putInt(distance);
+        append(record);
+    }
+
+    @Override
+    public void roadRemoved(int sourceId, int destId) {
+        ByteBuffer record = begin(REMOVE_ROAD, 8);
+        record.putInt(sourceId);
+        record.putInt(destId);
+        append(record);
+    }
+
+    // Start a record payload in the scratch buffer; only the graph's lock
+    // holder gets here, so one scratch buffer is enough
+    private ByteBuffer begin(byte type, int fieldBytes) {
+        if (scratch.capacity() < 9 + fieldBytes) {
+            scratch = newBuffer(9 + fieldBytes);
+        }
+        scratch.clear();
+        scratch.putLong(graph.getVersion());
+        scratch.put(type);
+        return scratch;
+    }
+
+    // Frame the payload and queue it for the flusher. Once the log has failed
+    // or been closed the record is dropped; sync() reports why.
+    private synchronized void append(ByteBuffer record) {
+        if (closed && failure == null) {
+            failure = new IOException("Edit made after the mutation log was closed");
+        }
+        if (failure != null) {
+            return;
+        }
+        record.flip();
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+
+        int needed = 8 + record.remaining();
+        if (pending.remaining() < needed) {
+            ByteBuffer larger = newBuffer(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        boolean wasEmpty = pending.position() == 0;
+        pending.putInt(record.remaining());
+        pending.putInt((int) crc.getValue());
+        pending.put(record);
+        appended++;
+        if (wasEmpty || pending.position() >= pending.capacity() / 2) {
+            notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        ByteBuffer spare = newBuffer(64 * 1024);
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            synchronized (this) {
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        wait();
+                    }
+                    // Let a burst accumulate unless someone is waiting in sync()
+                    if (!closed && commitIntervalMillis > 0) {
+                        wait(commitIntervalMillis);
+                    }
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+                if (pending.position() == 0 && closed) {
+                    return;
+                }
+                batch = pending;
+                pending = (spare.capacity() >= batch.capacity()) ? spare : newBuffer(batch.capacity());
+                batchEnd = appended;
+            }
+
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    // Nothing queued can be written any more
+                    pending = newBuffer(0);
+                    notifyAll();
+                }
+                return;
+            }
+
+            batch.clear();
+            spare = batch;
+            synchronized (this) {
+                durable = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    // Runs without the append lock so new edits keep queueing during the fsync
+    private void writeBatch(ByteBuffer batch) throws IOException {
+        synchronized (segmentLock) {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                segment.write(batch);
+            }
+            segment.force(false);
+        }
+    }
+
+    // Called with the graph locked: make everything logged so far durable in
+    // the current segment, switch to a new one and return the old number
+    private long rotateSegment() throws IOException {
+        sync();
+        synchronized (segmentLock) {
+            segment.force(true);
+            segment.close();
+            long folded = segmentNumber;
+            segmentNumber++;
+            segment = openSegment(segmentNumber);
+            return folded;
+        }
+    }
+
+    // A new segment's directory entry is synced at once, otherwise records
+    // fsynced into it could vanish with the file after a power loss
+    private FileChannel openSegment(long number) throws IOException {
+        Path file = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            GraphSnapshotFile.forceDirectory(directory);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    // Next intact record payload, or null at the end of the log or a torn record
+    private static ByteBuffer nextRecord(ByteBuffer data) {
+        if (data.remaining() < 8) {
+            return null;
+        }
+        int start = data.position();
+        int length = data.getInt(start);
+        int checksum = data.getInt(start + 4);
+        if (length < 9 || length > data.remaining() - 8) {
+            return null;
+        }
+
+        ByteBuffer payload = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        payload.position(start + 8).limit(start + 8 + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        data.position(start + 8 + length);
+        return payload;
+    }
+
+    // Apply one record unless the snapshot already contains it
+    private static boolean apply(ByteBuffer record, GraphCore graph, AVLTree tree) {
+        long version = record.getLong();
+        byte type = record.get();
+        if (version <= graph.getVersion()) {
+            return false;
+        }
+
+        switch (type) {
+            case ADD_LOCATION: {
+                int locationId = record.getInt();
+                boolean placed = record.get() != 0;
+                double latitude = placed ? record.getDouble() : 0;
+                double longitude = placed ? record.getDouble() : 0;
+                byte[] name = new byte[record.getInt()];
+                record.get(name);
+                String locationName = new String(name, StandardCharsets.UTF_8);
+                boolean added = placed ? graph.addLocation(locationId, locationName, latitude, longitude)
+                                       : graph.addLocation(locationId, locationName);
+                if (added) {
+                    tree.insert(locationId, locationName);
+                }
+                return added;
+            }
+            case REMOVE_LOCATION: {
+                int locationId = record.getInt();
+                if (graph.removeLocation(locationId)) {
+                    tree.delete(locationId);
+                    return true;
+                }
+                return false;
+            }
+            case SET_COORDINATES:
+                return graph.setCoordinates(record.getInt(), record.getDouble(), record.getDouble());
+            case ADD_ROAD:
+                return graph.addRoad(record.getInt(), record.getInt(), record.getInt());
+            case REMOVE_ROAD:
+                return graph.removeRoad(record.getInt(), record.getInt());
+            default:
+                return false;
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(MutationLog::segmentNumberOf));
+        return segments;
+    }
+
+    private static long segmentNumberOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
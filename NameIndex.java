@@ -0,0 +1,339 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+// Type-ahead index from location names to IDs, kept up to date by AVLTree.
+// Names are normalized (lower case, single spaces) and stored in a compressed
+// trie (radix tree) once in full and once from the start of every later word,
+// so "par" finds "Central Park". Edge labels are ranges of a key string rather
+// than copies, and the IDs ending at a node are a small int array.
+//   findByPrefix: walks to the prefix, then enumerates in name order and stops
+//     after limit IDs, so its cost depends on the prefix and limit, not on how
+//     many names there are.
+//   findSimilar: Levenshtein matching against whole names or words, computing
+//     one DP row per trie character and abandoning a branch as soon as every
+//     entry in its row is over maxEdits. Closest matches come first.
+// Not thread-safe, like the tree that owns it.
+public final class NameIndex {
+    private final Node root = new Node("", 0, 0);
+    private int size;
+
+    // Levenshtein rows by trie depth, reused between findSimilar calls
+    private int[][] rows = new int[0][];
+
+    private static final class Node {
+        // Label is text[from, to); text[0, to) is the whole path from the root
+        String text;
+        int from;
+        int to;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        int[] ids = NO_IDS;
+        int idCount;
+
+        Node(String text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        int length() {
+            return to - from;
+        }
+
+        char charAt(int i) {
+            return text.charAt(from + i);
+        }
+
+        // Children are sorted by the first character of their label
+        int childSlot(char c) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char first = children[middle].charAt(0);
+                if (first < c) {
+                    low = middle + 1;
+                } else if (first > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int slot, Node child) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, slot, children, slot + 1, childCount - slot);
+            children[slot] = child;
+            childCount++;
+        }
+
+        void removeChild(int slot) {
+            childCount--;
+            System.arraycopy(children, slot + 1, children, slot, childCount - slot);
+            children[childCount] = null;
+        }
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+
+    // Number of names indexed
+    public int size() {
+        return size;
+    }
+
+    // Index a location's name
+    void add(int locationId, String locationName) {
+        String normalized = normalize(locationName);
+        for (int start = 0; start >= 0; start = nextWord(normalized, start)) {
+            addKey(start == 0 ? normalized : normalized.substring(start), locationId);
+        }
+        size++;
+    }
+
+    // Forget a location's name; the name must be the one it was added with
+    void remove(int locationId, String locationName) {
+        String normalized = normalize(locationName);
+        for (int start = 0; start >= 0; start = nextWord(normalized, start)) {
+            removeKey(start == 0 ? normalized : normalized.substring(start), locationId);
+        }
+        size--;
+    }
+
+    // Up to limit location IDs whose name, or a word of it, starts with prefix;
+    // in name order, each ID once
+    public int[] findByPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        IntList found = new IntList();
+        if (limit <= 0) {
+            return found.toArray();
+        }
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int slot = node.childSlot(key.charAt(i));
+            if (slot < 0) {
+                return found.toArray();
+            }
+            Node child = node.children[slot];
+            int j = 0;
+            while (j < child.length() && i + j < key.length() && child.charAt(j) == key.charAt(i + j)) {
+                j++;
+            }
+            if (i + j < key.length() && j < child.length()) {
+                return found.toArray();
+            }
+            node = child;
+            i += j;
+        }
+        collect(node, found, limit);
+        return found.toArray();
+    }
+
+    // Depth-first in label order with an explicit stack, stopping at limit
+    private static void collect(Node start, IntList found, int limit) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (int i = 0; i < node.idCount; i++) {
+                addUnique(found, node.ids[i]);
+                if (found.size() == limit) {
+                    return;
+                }
+            }
+            for (int c = node.childCount - 1; c >= 0; c--) {
+                stack.push(node.children[c]);
+            }
+        }
+    }
+
+    // Up to limit location IDs whose name, or a word onwards, is within
+    // maxEdits insertions, deletions or substitutions of name; closest first
+    public int[] findSimilar(String name, int maxEdits, int limit) {
+        String key = normalize(name);
+        int columns = key.length() + 1;
+        if (rows.length == 0 || rows[0].length < columns) {
+            rows = new int[Math.max(rows.length, 16)][columns];
+        }
+        for (int c = 0; c < columns; c++) {
+            rows[0][c] = c;
+        }
+
+        // Matches as (distance, location ID) pairs, discovered in name order
+        IntList matches = new IntList();
+        similar(root, key, 0, maxEdits, matches);
+
+        Integer[] order = new Integer[matches.size() / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> matches.get(2 * i)));
+
+        IntList found = new IntList();
+        for (int i = 0; i < order.length && found.size() < limit; i++) {
+            addUnique(found, matches.get(2 * order[i] + 1));
+        }
+        return found.toArray();
+    }
+
+    // Extend the DP from rows[depth] along node's label and into its subtree
+    private void similar(Node node, String key, int depth, int maxEdits, IntList matches) {
+        int columns = key.length() + 1;
+        for (int i = 0; i < node.length(); i++) {
+            if (depth + 1 == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            if (rows[depth + 1] == null || rows[depth + 1].length < columns) {
+                rows[depth + 1] = new int[columns];
+            }
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            char c = node.charAt(i);
+            row[0] = previous[0] + 1;
+            int best = row[0];
+            for (int col = 1; col < columns; col++) {
+                int substitute = previous[col - 1] + ((key.charAt(col - 1) == c) ? 0 : 1);
+                row[col] = Math.min(substitute, Math.min(previous[col], row[col - 1]) + 1);
+                best = Math.min(best, row[col]);
+            }
+            depth++;
+            if (best > maxEdits) {
+                return;
+            }
+        }
+
+        int distance = rows[depth][columns - 1];
+        if (distance <= maxEdits) {
+            for (int i = 0; i < node.idCount; i++) {
+                matches.add(distance);
+                matches.add(node.ids[i]);
+            }
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            similar(node.children[c], key, depth, maxEdits, matches);
+        }
+    }
+
+    private void addKey(String key, int locationId) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int slot = node.childSlot(key.charAt(i));
+            if (slot < 0) {
+                Node leaf = new Node(key, i, key.length());
+                node.insertChild(-slot - 1, leaf);
+                node = leaf;
+                break;
+            }
+            Node child = node.children[slot];
+            int j = 0;
+            while (j < child.length() && i + j < key.length() && child.charAt(j) == key.charAt(i + j)) {
+                j++;
+            }
+            if (j < child.length()) {
+                // Split the label where the key leaves it
+                Node middle = new Node(child.text, child.from, child.from + j);
+                child.from += j;
+                middle.insertChild(0, child);
+                node.children[slot] = middle;
+                child = middle;
+            }
+            node = child;
+            i += j;
+        }
+
+        if (node.idCount == node.ids.length) {
+            node.ids = Arrays.copyOf(node.ids, Math.max(1, node.idCount * 2));
+        }
+        node.ids[node.idCount++] = locationId;
+    }
+
+    private void removeKey(String key, int locationId) {
+        // Path of (parent, slot) pairs from the root down to the key's node
+        Node[] parents = new Node[key.length() + 1];
+        int[] slots = new int[key.length() + 1];
+        int depth = 0;
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int slot = node.childSlot(key.charAt(i));
+            if (slot < 0) {
+                return;
+            }
+            Node child = node.children[slot];
+            if (child.length() > key.length() - i || !key.regionMatches(i, child.text, child.from, child.length())) {
+                return;
+            }
+            parents[depth] = node;
+            slots[depth++] = slot;
+            node = child;
+            i += child.length();
+        }
+
+        int position = -1;
+        for (int p = 0; p < node.idCount; p++) {
+            if (node.ids[p] == locationId) {
+                position = p;
+                break;
+            }
+        }
+        if (position < 0) {
+            return;
+        }
+        node.ids[position] = node.ids[--node.idCount];
+
+        // Drop an empty leaf, then fold a node left with one child into it
+        if (node != root && node.idCount == 0 && node.childCount == 0) {
+            depth--;
+            parents[depth].removeChild(slots[depth]);
+            node = parents[depth];
+        }
+        if (node != root && node.idCount == 0 && node.childCount == 1) {
+            Node child = node.children[0];
+            child.from -= node.length();
+            parents[depth - 1].children[slots[depth - 1]] = child;
+        }
+    }
+
+    private static void addUnique(IntList found, int locationId) {
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) == locationId) {
+                return;
+            }
+        }
+        found.add(locationId);
+    }
+
+    // Start of the word after position, or -1
+    private static int nextWord(String normalized, int position) {
+        int space = normalized.indexOf(' ', position);
+        return (space < 0) ? -1 : space + 1;
+    }
+
+    // Lower case with runs of whitespace collapsed to one space
+    static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package Smart_City_Route;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Runs an indexed loop on a given fork-join pool, for the batch APIs that let
+// callers cap their thread count with a pool of their own. A parallel stream
+// submitted to such a pool happens to run there too, but only as an
+// undocumented detail of the stream implementation, so the range is split with
+// RecursiveAction instead. Ranges are halved down to single indices, since
+// every index is a whole shortest-path search; idle workers steal halves.
+final class ParallelLoop {
+    private ParallelLoop() {
+    }
+
+    // Call body for every index in [0, count) on the pool and wait for all of
+    // them; an exception from any call is rethrown here
+    static void forEach(ForkJoinPool pool, int count, IntConsumer body) {
+        if (count > 0) {
+            pool.invoke(new Range(body, 0, count));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Range extends RecursiveAction {
+        private final IntConsumer body;
+        private final int from;
+        private final int to;
+
+        Range(IntConsumer body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Range(body, from, middle), new Range(body, middle, to));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, thread-safe cache of RouteResults keyed by (start, end) in front of
+// GraphAlgorithms.findShortestPath. Entries are weighed by path length plus a
+// fixed overhead and evicted least-recently-used once the total weight passes
+// the budget. The cache is split into independently locked segments so
+// concurrent lookups rarely contend; routes are computed outside the locks.
+// Every entry belongs to one GraphCore version: once getVersion() moves on
+// (addRoad, removeRoad, addLocation, removeLocation, ...), a segment drops
+// its entries on the next access, so a stale route is never returned.
+public final class RouteCache {
+    // Weight of an entry beyond its path: key, result object and map links
+    private static final int ENTRY_OVERHEAD = 16;
+
+    private final GraphCore graph;
+    private final SearchStrategy strategy;
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // One LRU map with its share of the weight budget
+    private static final class Segment {
+        final long maxWeight;
+        final LinkedHashMap<Long, RouteResult> routes = new LinkedHashMap<>(64, 0.75f, true);
+        long weight;
+        long version = -1;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        // Forget everything computed on an older graph
+        void advanceTo(long graphVersion) {
+            if (graphVersion > version) {
+                routes.clear();
+                weight = 0;
+                version = graphVersion;
+            }
+        }
+    }
+
+    public RouteCache(GraphCore graph, long maxWeight) {
+        this(graph, maxWeight, SearchStrategy.DIJKSTRA);
+    }
+
+    // maxWeight is roughly the number of path entries kept across all routes
+    public RouteCache(GraphCore graph, long maxWeight, SearchStrategy strategy) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(64, Runtime.getRuntime().availableProcessors() * 4)));
+        this.graph = graph;
+        this.strategy = strategy;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxWeight / count));
+        }
+    }
+
+    // Cached route if the graph has not changed since it was computed,
+    // otherwise compute it on the current snapshot and remember it
+    public RouteResult findShortestPath(int startId, int endId) {
+        long key = ((long) startId << 32) | (endId & 0xFFFFFFFFL);
+        Segment segment = segmentFor(key);
+
+        long currentVersion = graph.getVersion();
+        synchronized (segment) {
+            segment.advanceTo(currentVersion);
+            RouteResult cached = segment.routes.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        CSRGraph snapshot = graph.freeze();
+        RouteResult route = GraphAlgorithms.findShortestPath(snapshot, startId, endId, strategy);
+
+        synchronized (segment) {
+            segment.advanceTo(snapshot.getVersion());
+            // A snapshot older than the segment must not repopulate it
+            if (segment.version == snapshot.getVersion()) {
+                RouteResult previous = segment.routes.put(key, route);
+                if (previous != null) {
+                    segment.weight -= weigh(previous);
+                }
+                segment.weight += weigh(route);
+                evict(segment);
+            }
+        }
+        return route;
+    }
+
+    // Drop every cached route
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.routes.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.routes.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d routes cached, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(), getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount());
+    }
+
+    // Remove least recently used routes until the segment fits its budget
+    private void evict(Segment segment) {
+        Iterator<RouteResult> eldest = segment.routes.values().iterator();
+        while (segment.weight > segment.maxWeight && eldest.hasNext()) {
+            segment.weight -= weigh(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private Segment segmentFor(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+
+    private static int weigh(RouteResult route) {
+        return route.getPathLength() + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,67 @@
+package Smart_City_Route;
+
+// Result of a point-to-point route query: total distance plus the location IDs
+// along the route, start first. Unreachable routes have an empty path.
+public final class RouteResult {
+    private static final int[] EMPTY_PATH = new int[0];
+
+    private final int totalDistance;
+    private final int[] path;
+
+    RouteResult(int totalDistance, int[] path) {
+        this.totalDistance = totalDistance;
+        this.path = path;
+    }
+
+    // Result for a destination that cannot be reached
+    static RouteResult unreachable() {
+        return new RouteResult(ShortestPathEngine.UNREACHABLE, EMPTY_PATH);
+    }
+
+    // Build a result from the engine's last query, mapping dense indices back to IDs
+    static RouteResult fromEngine(CSRGraph graph, ShortestPathEngine engine, int distance) {
+        if (distance == ShortestPathEngine.UNREACHABLE) {
+            return unreachable();
+        }
+        int[] path = new int[engine.pathLength()];
+        engine.copyPath(path);
+        for (int i = 0; i < path.length; i++) {
+            path[i] = graph.idAt(path[i]);
+        }
+        return new RouteResult(distance, path);
+    }
+
+    public boolean isFound() {
+        return path.length > 0;
+    }
+
+    public int getTotalDistance() {
+        return totalDistance;
+    }
+
+    // Number of locations on the route, including start and end
+    public int getPathLength() {
+        return path.length;
+    }
+
+    public int getLocationAt(int index) {
+        return path[index];
+    }
+
+    public int[] getPath() {
+        return path.clone();
+    }
+
+    @Override
+    public String toString() {
+        if (!isFound()) {
+            return "No path";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) sb.append(" -> ");
+            sb.append(path[i]);
+        }
+        return sb.append(" (Distance: ").append(totalDistance).append(")").toString();
+    }
+}
@@ -0,0 +1,65 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// Reusable per-search state: tentative distances, predecessor links and the
+// priority queue, all indexed by CSR node index. Only the nodes touched by a
+// search are cleared afterwards, so a reset costs O(touched) instead of O(V).
+final class SearchScratch {
+    int[] distance = new int[0];
+    int[] previous = new int[0];
+    final IndexedMinHeap heap = new IndexedMinHeap(0);
+    int settled;
+
+    private int[] touched = new int[0];
+    private int touchedCount;
+
+    // Clear the previous search and make room for a graph of the given size
+    void prepare(int size) {
+        reset();
+        if (distance.length < size) {
+            distance = new int[size];
+            previous = new int[size];
+            touched = new int[size];
+            Arrays.fill(distance, Integer.MAX_VALUE);
+            Arrays.fill(previous, -1);
+            heap.ensureCapacity(size);
+        }
+        settled = 0;
+    }
+
+    void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            distance[node] = Integer.MAX_VALUE;
+            previous[node] = -1;
+        }
+        touchedCount = 0;
+        heap.clear();
+    }
+
+    // Record a shorter tentative distance; returns false if it is not an improvement
+    boolean relax(int node, int newDistance, int from) {
+        if (newDistance >= distance[node]) {
+            return false;
+        }
+        if (distance[node] == Integer.MAX_VALUE) {
+            touched[touchedCount++] = node;
+        }
+        distance[node] = newDistance;
+        previous[node] = from;
+        return true;
+    }
+
+    boolean reached(int node) {
+        return distance[node] != Integer.MAX_VALUE;
+    }
+
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int touchedAt(int i) {
+        return touched[i];
+    }
+}
@@ -0,0 +1,14 @@
+package Smart_City_Route;
+
+// Search algorithms available to GraphAlgorithms.findShortestPath
+public enum SearchStrategy {
+    // Single-source Dijkstra that stops once the destination is settled
+    DIJKSTRA,
+    // Dijkstra from both ends at once, stopping when the two searches meet.
+    // Relies on roads being bidirectional, which GraphCore.addRoad guarantees.
+    BIDIRECTIONAL,
+    // A* with a straight-line bound from location coordinates. Falls back to
+    // DIJKSTRA when a location has no coordinates or the bound fails validation
+    // (see CoordinateHeuristic.getInconsistentRoads).
+    A_STAR
+}
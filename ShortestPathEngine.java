@@ -0,0 +1,365 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// Allocation-free point-to-point shortest path queries over a CSRGraph.
+// An engine keeps its scratch arrays between queries and is not thread-safe;
+// use current() to get the calling thread's own instance.
+public final class ShortestPathEngine {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<ShortestPathEngine> PER_THREAD =
+            ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    private final SearchScratch forward = new SearchScratch();
+    private final SearchScratch backward = new SearchScratch();
+
+    // The last path runs start -> ... -> meeting along forward.previous, then
+    // meeting -> ... -> end along backward.previous when bidirectional is set
+    private int meeting = -1;
+    private boolean bidirectional;
+
+    // oneToMany() marks its targets with the current stamp instead of clearing
+    private int[] targetStamp = new int[0];
+    private int stamp;
+
+    public static ShortestPathEngine current() {
+        return PER_THREAD.get();
+    }
+
+    // Dijkstra between two dense node indices.
+    // Returns the distance, or UNREACHABLE if end cannot be reached.
+    public int dijkstra(CSRGraph graph, int start, int end) {
+        SearchScratch search = forward;
+        search.prepare(graph.size());
+        meeting = end;
+        bidirectional = false;
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] weights = graph.weights;
+        IndexedMinHeap heap = search.heap;
+
+        search.relax(start, 0, -1);
+        heap.push(start, 0);
+
+        while (!heap.isEmpty()) {
+            int distance = heap.minKey();
+            int current = heap.pop();
+            search.settled++;
+
+            if (current == end) {
+                return distance;
+            }
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance >= 0 && search.relax(next, newDistance, current)) {
+                    heap.push(next, newDistance);
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    // Full Dijkstra from a dense node index to every reachable node.
+    // Read the tree with distanceTo/previousOf and reachedCount/reachedAt.
+    public int singleSource(CSRGraph graph, int start) {
+        dijkstra(graph, start, -1);
+        return forward.touchedCount();
+    }
+
+    // Dijkstra from a dense node index that stops at a distance budget. Only
+    // nodes within the budget are ever queued, so every node reached is
+    // settled with its final distance; read them with reachedCount/reachedAt
+    // and distanceTo. Returns the number reached.
+    public int withinBudget(CSRGraph graph, int start, int budget) {
+        SearchScratch search = forward;
+        search.prepare(graph.size());
+        meeting = -1;
+        bidirectional = false;
+        if (budget < 0) {
+            return 0;
+        }
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] weights = graph.weights;
+        IndexedMinHeap heap = search.heap;
+
+        search.relax(start, 0, -1);
+        heap.push(start, 0);
+
+        while (!heap.isEmpty()) {
+            int distance = heap.minKey();
+            int current = heap.pop();
+            search.settled++;
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance >= 0 && newDistance <= budget && search.relax(next, newDistance, current)) {
+                    heap.push(next, newDistance);
+                }
+            }
+        }
+        return search.touchedCount();
+    }
+
+    // Earliest arrival at end when leaving start at departureTime, with each
+    // road's travel time depending on when it is entered. Profiles are FIFO
+    // (leaving later never arrives earlier), so plain label-setting Dijkstra
+    // on arrival times is exact. Returns the arrival time or UNREACHABLE.
+    public int timeDependent(CSRGraph graph, int start, int end, TravelTimeProfiles profiles, int departureTime) {
+        SearchScratch search = forward;
+        search.prepare(graph.size());
+        meeting = end;
+        bidirectional = false;
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        IndexedMinHeap heap = search.heap;
+
+        search.relax(start, departureTime, -1);
+        heap.push(start, departureTime);
+
+        while (!heap.isEmpty()) {
+            int arrival = heap.minKey();
+            int current = heap.pop();
+            search.settled++;
+
+            if (current == end) {
+                return arrival;
+            }
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                // Departure times may be negative, so overflow shows up as
+                // arriving before leaving rather than as a negative sum
+                int newArrival = arrival + profiles.travelTime(e, arrival);
+                if (newArrival >= arrival && search.relax(next, newArrival, current)) {
+                    heap.push(next, newArrival);
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    // Dijkstra from one dense node index to many. Writes the distance to
+    // targets[i] into out[offset + i] (UNREACHABLE if it cannot be reached or
+    // the index is negative) and stops as soon as every target is settled.
+    public void oneToMany(CSRGraph graph, int start, int[] targets, int[] out, int offset) {
+        SearchScratch search = forward;
+        search.prepare(graph.size());
+        meeting = -1;
+        bidirectional = false;
+
+        if (targetStamp.length < graph.size()) {
+            targetStamp = new int[graph.size()];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(targetStamp, 0);
+            stamp = 1;
+        }
+        int remaining = 0;
+        for (int target : targets) {
+            if (target >= 0 && targetStamp[target] != stamp) {
+                targetStamp[target] = stamp;
+                remaining++;
+            }
+        }
+
+        int[] offsets = graph.offsets;
+        int[] edgeTargets = graph.targets;
+        int[] weights = graph.weights;
+        IndexedMinHeap heap = search.heap;
+
+        if (start >= 0 && remaining > 0) {
+            search.relax(start, 0, -1);
+            heap.push(start, 0);
+        }
+        while (!heap.isEmpty()) {
+            int distance = heap.minKey();
+            int current = heap.pop();
+            search.settled++;
+
+            if (targetStamp[current] == stamp && --remaining == 0) {
+                break;
+            }
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = edgeTargets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance >= 0 && search.relax(next, newDistance, current)) {
+                    heap.push(next, newDistance);
+                }
+            }
+        }
+
+        // Every reached target was settled, so its tentative distance is final
+        for (int i = 0; i < targets.length; i++) {
+            out[offset + i] = (targets[i] >= 0) ? search.distance[targets[i]] : UNREACHABLE;
+        }
+    }
+
+    // A* between two dense node indices, guided by a consistent heuristic.
+    // With a consistent bound every node is settled at most once, so the
+    // result is exact; only the order of exploration changes.
+    public int aStar(CSRGraph graph, int start, int end, DistanceHeuristic heuristic) {
+        SearchScratch search = forward;
+        search.prepare(graph.size());
+        meeting = end;
+        bidirectional = false;
+
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] weights = graph.weights;
+        IndexedMinHeap heap = search.heap;
+
+        search.relax(start, 0, -1);
+        heap.push(start, heuristic.lowerBound(start, end));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            search.settled++;
+
+            int distance = search.distance[current];
+            if (current == end) {
+                return distance;
+            }
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance >= 0 && search.relax(next, newDistance, current)) {
+                    long key = (long) newDistance + heuristic.lowerBound(next, end);
+                    heap.push(next, (int) Math.min(key, Integer.MAX_VALUE));
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    // Bidirectional Dijkstra between two dense node indices: one search grows
+    // from the start, one from the end (edges are symmetric), always expanding
+    // the side with the smaller queue, until no shorter meeting is possible.
+    public int bidirectionalDijkstra(CSRGraph graph, int start, int end) {
+        forward.prepare(graph.size());
+        backward.prepare(graph.size());
+        bidirectional = true;
+        meeting = -1;
+
+        forward.relax(start, 0, -1);
+        forward.heap.push(start, 0);
+        backward.relax(end, 0, -1);
+        backward.heap.push(end, 0);
+
+        int best = UNREACHABLE;
+        if (start == end) {
+            best = 0;
+            meeting = start;
+        }
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            if ((long) forward.heap.minKey() + backward.heap.minKey() >= best) {
+                break;
+            }
+
+            boolean expandForward = forward.heap.size() <= backward.heap.size();
+            SearchScratch search = expandForward ? forward : backward;
+            SearchScratch other = expandForward ? backward : forward;
+
+            int distance = search.heap.minKey();
+            int current = search.heap.pop();
+            search.settled++;
+
+            for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                int next = graph.targets[e];
+                int newDistance = distance + graph.weights[e];
+                if (newDistance < 0) {
+                    continue;
+                }
+                if (search.relax(next, newDistance, current)) {
+                    search.heap.push(next, newDistance);
+                }
+                if (other.reached(next)) {
+                    long total = (long) search.distance[next] + other.distance[next];
+                    if (total < best) {
+                        best = (int) total;
+                        meeting = next;
+                    }
+                }
+            }
+        }
+
+        if (best == UNREACHABLE) {
+            meeting = -1;
+        }
+        return best;
+    }
+
+    // Tentative distance of a node after the last forward search, or UNREACHABLE
+    public int distanceTo(int node) {
+        return forward.distance[node];
+    }
+
+    // Predecessor of a node in the last forward search tree, or -1
+    public int previousOf(int node) {
+        return forward.previous[node];
+    }
+
+    // Nodes reached by the last forward search, in discovery order
+    public int reachedCount() {
+        return forward.touchedCount();
+    }
+
+    public int reachedAt(int i) {
+        return forward.touchedAt(i);
+    }
+
+    // Nodes settled by the last query, for comparing search strategies
+    public int settledCount() {
+        return forward.settled + backward.settled;
+    }
+
+    // Number of nodes on the last query's path, or 0 if no path was found
+    public int pathLength() {
+        if (meeting < 0 || !forward.reached(meeting)) {
+            return 0;
+        }
+        int length = 0;
+        for (int node = meeting; node != -1; node = forward.previous[node]) {
+            length++;
+        }
+        if (bidirectional) {
+            for (int node = backward.previous[meeting]; node != -1; node = backward.previous[node]) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    // Copy the last query's path (dense indices, start first) into out
+    public void copyPath(int[] out) {
+        int length = pathLength();
+        if (length == 0) {
+            return;
+        }
+        int i = 0;
+        if (bidirectional) {
+            for (int node = backward.previous[meeting]; node != -1; node = backward.previous[node]) {
+                i++;
+            }
+            int j = length - i;
+            for (int node = backward.previous[meeting]; node != -1; node = backward.previous[node]) {
+                out[j++] = node;
+            }
+        }
+        i = length - i;
+        for (int node = meeting; i > 0; node = forward.previous[node]) {
+            out[--i] = node;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package Smart_City_Route;
+
+// Nearest-location lookups over the coordinates of a CSRGraph snapshot, for
+// snapping GPS positions to location IDs. Positions become earth-centred
+// points in km, as in CoordinateHeuristic, and are stored in an implicit k-d
+// tree: the subtree over positions [from, to) splits at its middle entry on
+// the axis of widest spread, and ranges of LEAF_SIZE or fewer are scanned.
+// Points live interleaved in one double array in tree order, so a query
+// touches a few contiguous runs instead of one object per location.
+// Distances are straight-line (chord) km; radii are given as great-circle km.
+// Locations without coordinates are left out. Immutable once built, so
+// queries can run from any number of threads.
+public final class SpatialIndex {
+    private static final int LEAF_SIZE = 8;
+
+    private final CSRGraph graph;
+    // Dense graph index of each tree position
+    private final int[] order;
+    // x, y, z of each tree position
+    private final double[] points;
+    // Split axis of the subtree whose middle entry is at each position
+    private final byte[] axis;
+
+    SpatialIndex(CSRGraph graph) {
+        this.graph = graph;
+        int placed = 0;
+        for (int i = 0; i < graph.size(); i++) {
+            if (graph.hasCoordinates(i)) {
+                placed++;
+            }
+        }
+
+        order = new int[placed];
+        points = new double[placed * 3];
+        axis = new byte[placed];
+        int position = 0;
+        for (int i = 0; i < graph.size(); i++) {
+            if (graph.hasCoordinates(i)) {
+                order[position] = i;
+                toPoint(graph.latitudeAt(i), graph.longitudeAt(i), points, position * 3);
+                position++;
+            }
+        }
+        build(0, placed);
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    // Number of locations with coordinates
+    public int size() {
+        return order.length;
+    }
+
+    // ID of the location nearest to a position, or -1 if none has coordinates
+    public int snap(double latitude, double longitude) {
+        int[] nearest = nearest(latitude, longitude, 1);
+        return (nearest.length > 0) ? nearest[0] : -1;
+    }
+
+    // IDs of the k locations nearest to a position, closest first
+    public int[] nearest(double latitude, double longitude, int k) {
+        int count = Math.min(k, order.length);
+        if (count <= 0) {
+            return new int[0];
+        }
+        double[] query = new double[3];
+        toPoint(latitude, longitude, query, 0);
+
+        // Bounded max-heap of the best candidates so far, worst at the top
+        double[] heapDistances = new double[count];
+        int[] heapPositions = new int[count];
+        int heapSize = nearest(0, order.length, query, heapDistances, heapPositions, 0);
+
+        // Popping the max-heap fills the result from the back
+        int[] ids = new int[heapSize];
+        while (heapSize > 0) {
+            ids[heapSize - 1] = graph.idAt(order[heapPositions[0]]);
+            heapSize--;
+            siftDown(heapDistances, heapPositions, heapSize, heapDistances[heapSize], heapPositions[heapSize]);
+        }
+        return ids;
+    }
+
+    // IDs of every location within radiusKm of a position, in no particular order
+    public int[] withinRadius(double latitude, double longitude, double radiusKm) {
+        IntList found = new IntList();
+        if (radiusKm < 0 || order.length == 0) {
+            return found.toArray();
+        }
+        double[] query = new double[3];
+        toPoint(latitude, longitude, query, 0);
+        double chord = 2 * CoordinateHeuristic.EARTH_RADIUS_KM
+                * Math.sin(Math.min(radiusKm / (2 * CoordinateHeuristic.EARTH_RADIUS_KM), Math.PI / 2));
+        within(0, order.length, query, chord * chord, found);
+        for (int i = 0; i < found.size(); i++) {
+            found.set(i, graph.idAt(order[found.get(i)]));
+        }
+        return found.toArray();
+    }
+
+    // Straight-line km from a position to a location, or NaN if the location
+    // is unknown or has no coordinates
+    public double distanceKm(double latitude, double longitude, int locationId) {
+        int index = graph.indexOf(locationId);
+        if (index < 0 || !graph.hasCoordinates(index)) {
+            return Double.NaN;
+        }
+        double[] both = new double[6];
+        toPoint(latitude, longitude, both, 0);
+        toPoint(graph.latitudeAt(index), graph.longitudeAt(index), both, 3);
+        double dx = both[0] - both[3];
+        double dy = both[1] - both[4];
+        double dz = both[2] - both[5];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Search [from, to) and return the new heap size
+    private int nearest(int from, int to, double[] query, double[] heapDistances, int[] heapPositions, int heapSize) {
+        if (to - from <= LEAF_SIZE) {
+            for (int p = from; p < to; p++) {
+                heapSize = offer(heapDistances, heapPositions, heapSize, squaredDistance(p, query), p);
+            }
+            return heapSize;
+        }
+        int middle = (from + to) >>> 1;
+        double gap = query[axis[middle]] - points[middle * 3 + axis[middle]];
+        heapSize = offer(heapDistances, heapPositions, heapSize, squaredDistance(middle, query), middle);
+
+        // Nearer side first; the far side only if the splitting plane is
+        // closer than the worst candidate kept
+        if (gap < 0) {
+            heapSize = nearest(from, middle, query, heapDistances, heapPositions, heapSize);
+        } else {
+            heapSize = nearest(middle + 1, to, query, heapDistances, heapPositions, heapSize);
+        }
+        if (heapSize < heapDistances.length || gap * gap < heapDistances[0]) {
+            if (gap < 0) {
+                heapSize = nearest(middle + 1, to, query, heapDistances, heapPositions, heapSize);
+            } else {
+                heapSize = nearest(from, middle, query, heapDistances, heapPositions, heapSize);
+            }
+        }
+        return heapSize;
+    }
+
+    private void within(int from, int to, double[] query, double limit, IntList found) {
+        if (to - from <= LEAF_SIZE) {
+            for (int p = from; p < to; p++) {
+                if (squaredDistance(p, query) <= limit) {
+                    found.add(p);
+                }
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        double gap = query[axis[middle]] - points[middle * 3 + axis[middle]];
+        if (squaredDistance(middle, query) <= limit) {
+            found.add(middle);
+        }
+        if (gap <= 0 || gap * gap <= limit) {
+            within(from, middle, query, limit, found);
+        }
+        if (gap >= 0 || gap * gap <= limit) {
+            within(middle + 1, to, query, limit, found);
+        }
+    }
+
+    // Keep the heapDistances.length smallest distances offered
+    private static int offer(double[] heapDistances, int[] heapPositions, int heapSize, double distance, int position) {
+        if (heapSize < heapDistances.length) {
+            // Sift up
+            int i = heapSize;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapDistances[parent] >= distance) {
+                    break;
+                }
+                heapDistances[i] = heapDistances[parent];
+                heapPositions[i] = heapPositions[parent];
+                i = parent;
+            }
+            heapDistances[i] = distance;
+            heapPositions[i] = position;
+            return heapSize + 1;
+        }
+        if (distance < heapDistances[0]) {
+            siftDown(heapDistances, heapPositions, heapSize, distance, position);
+        }
+        return heapSize;
+    }
+
+    // Put an entry at the root of a max-heap of heapSize and sift it down
+    private static void siftDown(double[] heapDistances, int[] heapPositions, int heapSize, double distance, int position) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapDistances[child + 1] > heapDistances[child]) {
+                child++;
+            }
+            if (heapDistances[child] <= distance) {
+                break;
+            }
+            heapDistances[i] = heapDistances[child];
+            heapPositions[i] = heapPositions[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heapDistances[i] = distance;
+            heapPositions[i] = position;
+        }
+    }
+
+    private double squaredDistance(int position, double[] query) {
+        double dx = points[position * 3] - query[0];
+        double dy = points[position * 3 + 1] - query[1];
+        double dz = points[position * 3 + 2] - query[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Arrange [from, to) so its middle entry splits it on the widest axis,
+    // then do the same for both halves. O(n log n) overall.
+    private void build(int from, int to) {
+        if (to - from <= LEAF_SIZE) {
+            return;
+        }
+        double[] low = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] high = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int p = from; p < to; p++) {
+            for (int a = 0; a < 3; a++) {
+                low[a] = Math.min(low[a], points[p * 3 + a]);
+                high[a] = Math.max(high[a], points[p * 3 + a]);
+            }
+        }
+        int widest = 0;
+        for (int a = 1; a < 3; a++) {
+            if (high[a] - low[a] > high[widest] - low[widest]) {
+                widest = a;
+            }
+        }
+
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, widest);
+        axis[middle] = (byte) widest;
+        build(from, middle);
+        build(middle + 1, to);
+    }
+
+    // Quickselect on one axis: afterwards position k holds the entry that
+    // sorting [left, right] would put there, with nothing larger before it
+    // and nothing smaller after it
+    private void select(int left, int right, int k, int a) {
+        while (left < right) {
+            double pivot = points[((left + right) >>> 1) * 3 + a];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[i * 3 + a] < pivot) {
+                    i++;
+                }
+                while (points[j * 3 + a] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+        for (int a = 0; a < 3; a++) {
+            double value = points[i * 3 + a];
+            points[i * 3 + a] = points[j * 3 + a];
+            points[j * 3 + a] = value;
+        }
+    }
+
+    private static void toPoint(double latitude, double longitude, double[] out, int at) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        out[at] = CoordinateHeuristic.EARTH_RADIUS_KM * Math.cos(lat) * Math.cos(lon);
+        out[at + 1] = CoordinateHeuristic.EARTH_RADIUS_KM * Math.cos(lat) * Math.sin(lon);
+        out[at + 2] = CoordinateHeuristic.EARTH_RADIUS_KM * Math.sin(lat);
+    }
+}
@@ -0,0 +1,215 @@
+package Smart_City_Route;
+
+import java.util.Arrays;
+
+// Time-dependent travel times for the roads of a CSRGraph snapshot.
+// A profile gives a road's travel time at bucketCount evenly spaced times of
+// a repeating period (e.g. 96 x 15 minutes for a day); times in between are
+// interpolated linearly and the period wraps around. Roads without a profile
+// take their fixed distance as the travel time, so profiles, departure times
+// and distances share one unit.
+// Storage is primitive and shared: one int per edge slot naming its profile,
+// plus one flat pool holding each distinct profile once (found again through
+// an int hash table over the pool), so millions of roads drawing on a few
+// hundred traffic patterns cost little more than the int.
+// Profiles are made FIFO when added: a travel time may fall no faster than
+// the clock advances, so leaving later never means arriving earlier.
+public final class TravelTimeProfiles {
+    private static final int FIXED = -1;
+
+    private final CSRGraph graph;
+    private final int bucketLength;
+    private final int bucketCount;
+    private final int period;
+    private final int[] edgeProfile;
+
+    private int[] pool;
+    private int profileCount;
+
+    // Open-addressing set of stored profiles for sharing equal ones: each slot
+    // holds a profile ID + 1 (0 is empty), probed linearly from the hash of
+    // the profile's travel times, and candidates are compared against the
+    // pool itself, so a profile is stored only once
+    private int[] profileTable = new int[16];
+
+    public TravelTimeProfiles(CSRGraph graph, int bucketLength, int bucketCount) {
+        if (bucketLength <= 0 || bucketCount <= 0 || (long) bucketLength * bucketCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid profile period: " + bucketCount + " x " + bucketLength);
+        }
+        this.graph = graph;
+        this.bucketLength = bucketLength;
+        this.bucketCount = bucketCount;
+        this.period = bucketLength * bucketCount;
+        this.edgeProfile = new int[graph.edgeCount()];
+        this.pool = new int[bucketCount * 8];
+        Arrays.fill(edgeProfile, FIXED);
+    }
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    // Number of distinct profiles stored
+    public int getProfileCount() {
+        return profileCount;
+    }
+
+    // Store a profile of bucketCount non-negative travel times and return its
+    // ID; an equal profile already stored is reused
+    public int addProfile(int[] travelTimes) {
+        if (travelTimes.length != bucketCount) {
+            throw new IllegalArgumentException("Expected " + bucketCount + " travel times, got " + travelTimes.length);
+        }
+        int[] fifo = travelTimes.clone();
+        for (int time : fifo) {
+            if (time < 0) {
+                throw new IllegalArgumentException("Travel times must not be negative");
+            }
+        }
+        enforceFifo(fifo);
+
+        int mask = profileTable.length - 1;
+        int slot = hash(fifo, 0) & mask;
+        while (profileTable[slot] != 0) {
+            int existing = profileTable[slot] - 1;
+            int base = existing * bucketCount;
+            if (Arrays.equals(pool, base, base + bucketCount, fifo, 0, bucketCount)) {
+                return existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((long) (profileCount + 1) * bucketCount > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct profiles");
+        }
+        if ((profileCount + 1) * bucketCount > pool.length) {
+            pool = Arrays.copyOf(pool, (int) Math.min(Integer.MAX_VALUE,
+                    Math.max(pool.length * 2L, (long) (profileCount + 1) * bucketCount)));
+        }
+        System.arraycopy(fifo, 0, pool, profileCount * bucketCount, bucketCount);
+        profileTable[slot] = profileCount + 1;
+        profileCount++;
+        // Keep the table at most half full
+        if (profileCount * 2 > profileTable.length) {
+            growProfileTable();
+        }
+        return profileCount - 1;
+    }
+
+    private void growProfileTable() {
+        int[] table = new int[profileTable.length * 2];
+        int mask = table.length - 1;
+        for (int profile = 0; profile < profileCount; profile++) {
+            int slot = hash(pool, profile * bucketCount) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = profile + 1;
+        }
+        profileTable = table;
+    }
+
+    // Hash of the bucketCount travel times starting at from, spread so the
+    // low bits used for the table index depend on every value
+    private int hash(int[] travelTimes, int from) {
+        int hash = 1;
+        for (int i = from; i < from + bucketCount; i++) {
+            hash = 31 * hash + travelTimes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Use a profile for the road between two locations, both directions.
+    // Returns false if there is no such road or profile.
+    public boolean setProfile(int sourceId, int destId, int profileId) {
+        if (profileId < 0 || profileId >= profileCount) {
+            return false;
+        }
+        return assign(sourceId, destId, profileId);
+    }
+
+    // Go back to the road's fixed distance
+    public boolean clearProfile(int sourceId, int destId) {
+        return assign(sourceId, destId, FIXED);
+    }
+
+    // Travel time along an edge slot when entering it at the given time
+    int travelTime(int edge, int time) {
+        int profile = edgeProfile[edge];
+        if (profile == FIXED) {
+            return graph.weights[edge];
+        }
+        int offset = Math.floorMod(time, period);
+        int bucket = offset / bucketLength;
+        int into = offset - bucket * bucketLength;
+        int base = profile * bucketCount;
+        int from = pool[base + bucket];
+        int to = pool[base + (bucket + 1) % bucketCount];
+        return from + (int) ((long) (to - from) * into / bucketLength);
+    }
+
+    // Travel time of the road between two locations when entered at the
+    // given time, or -1 if there is no such road
+    public int getTravelTime(int sourceId, int destId, int time) {
+        int edge = findEdge(graph.indexOf(sourceId), graph.indexOf(destId));
+        return (edge >= 0) ? travelTime(edge, time) : -1;
+    }
+
+    // Fastest route leaving startId at departureTime; the result's total
+    // distance is the travel time
+    public RouteResult findFastestRoute(int startId, int endId, int departureTime) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return RouteResult.unreachable();
+        }
+
+        ShortestPathEngine engine = ShortestPathEngine.current();
+        int arrival = engine.timeDependent(graph, start, end, this, departureTime);
+        int travelTime = (arrival == ShortestPathEngine.UNREACHABLE) ? arrival : arrival - departureTime;
+        return RouteResult.fromEngine(graph, engine, travelTime);
+    }
+
+    private boolean assign(int sourceId, int destId, int profile) {
+        int source = graph.indexOf(sourceId);
+        int dest = graph.indexOf(destId);
+        int forward = findEdge(source, dest);
+        int backward = findEdge(dest, source);
+        if (forward < 0 || backward < 0) {
+            return false;
+        }
+        edgeProfile[forward] = profile;
+        edgeProfile[backward] = profile;
+        return true;
+    }
+
+    private int findEdge(int source, int dest) {
+        if (source < 0 || dest < 0) {
+            return -1;
+        }
+        for (int e = graph.offsets[source]; e < graph.offsets[source + 1]; e++) {
+            if (graph.targets[e] == dest) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    // Raise travel times where they would fall faster than one unit per unit
+    // of time. Two passes carry a late-night peak over midnight.
+    private void enforceFifo(int[] travelTimes) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < bucketCount; i++) {
+                int next = (i + 1) % bucketCount;
+                long floor = (long) travelTimes[i] - bucketLength;
+                if (travelTimes[next] < floor) {
+                    travelTimes[next] = (int) floor;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// SearchStrategy.A_STAR against the reference Dijkstra: with a usable
+// coordinate bound, with a road shorter than the straight line (the bound
+// is rejected) and with a location missing coordinates (fallback)
+public class AStarTest {
+    public static void main(String[] args) {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            int n = 2 + random.nextInt(80);
+            GraphCore graph = randomCity(random, n, 1 + random.nextInt(3 * n), 15, true);
+            CoordinateHeuristic heuristic = graph.freeze().coordinateHeuristic();
+            check(heuristic.isUsable(), "bound rejected although every road is long enough");
+            checkQueries(random, graph, n, "a* usable");
+
+            // The bound never exceeds a real distance
+            CSRGraph snapshot = graph.freeze();
+            for (int q = 0; q < 20; q++) {
+                int startId = idOf(random.nextInt(n));
+                Map<Integer, Integer> distances = referenceDistances(graph, startId);
+                for (Map.Entry<Integer, Integer> entry : distances.entrySet()) {
+                    check(heuristic.lowerBound(snapshot.indexOf(startId), snapshot.indexOf(entry.getKey())) <= entry.getValue(),
+                            "lower bound above the road distance");
+                }
+            }
+
+            // A road shorter than the straight line makes the bound unsafe
+            int a = idOf(0);
+            int b = idOf(1);
+            if (straightLineKm(graph, a, b) >= 2) {
+                graph.addRoad(a, b, 1);
+                CoordinateHeuristic shortcut = graph.freeze().coordinateHeuristic();
+                check(!shortcut.isUsable(), "bound accepted with a road shorter than the straight line");
+                int[] bad = shortcut.getInconsistentRoads();
+                check(bad.length == 2 && Math.min(bad[0], bad[1]) == a && Math.max(bad[0], bad[1]) == b,
+                        "wrong inconsistent road reported");
+                checkQueries(random, graph, n, "a* fallback after shortcut");
+            }
+
+            // A location without coordinates also falls back to Dijkstra
+            graph.addLocation(1, "Unplaced");
+            graph.addRoad(1, idOf(random.nextInt(n)), 1 + random.nextInt(15));
+            check(!graph.freeze().coordinateHeuristic().isUsable(), "bound used with an unplaced location");
+            checkQueries(random, graph, n, "a* fallback when unplaced");
+        }
+        System.out.println("AStarTest passed");
+    }
+
+    private static void checkQueries(Random random, GraphCore graph, int n, String what) {
+        for (int q = 0; q < 20; q++) {
+            int startId = idOf(random.nextInt(n));
+            int endId = idOf(random.nextInt(n));
+            Integer expected = referenceDistances(graph, startId).get(endId);
+            checkRoute(graph, GraphAlgorithms.findShortestPath(graph, startId, endId, SearchStrategy.A_STAR),
+                    startId, endId, expected, what);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// AVLTree.fromSorted, insertAll and deleteAll against a TreeMap, with the
+// name index built before the batches so its updates are checked too
+public class AVLTreeBulkTest {
+    private static final String[] WORDS = {"central", "park", "harbour", "station", "market", "temple", "lake"};
+
+    public static void main(String[] args) {
+        Random random = new Random(23);
+        for (int round = 0; round < 40; round++) {
+            int n = random.nextInt(round < 20 ? 50 : 800);
+            TreeMap<Integer, String> reference = new TreeMap<>();
+            while (reference.size() < n) {
+                reference.put(random.nextInt(4 * n + 1) - n, randomName(random));
+            }
+            int[] ids = new int[n];
+            String[] names = new String[n];
+            int i = 0;
+            for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+                ids[i] = entry.getKey();
+                names[i++] = entry.getValue();
+            }
+            AVLTree tree = AVLTree.fromSorted(ids, names);
+            checkTree(random, tree, reference);
+            NameIndex index = tree.getNameIndex();
+            checkNames(tree, index, reference);
+
+            for (int batch = 0; batch < 10; batch++) {
+                int m = random.nextInt(Math.max(2, n / 2));
+                int[] batchIds = new int[m];
+                String[] batchNames = new String[m];
+                for (int j = 0; j < m; j++) {
+                    batchIds[j] = random.nextInt(4 * n + 1) - n;
+                    batchNames[j] = randomName(random);
+                }
+                if (random.nextBoolean()) {
+                    // Unsorted, with repeats: the last name of a repeated ID wins
+                    tree.insertAll(batchIds, batchNames);
+                    for (int j = 0; j < m; j++) {
+                        reference.put(batchIds[j], batchNames[j]);
+                    }
+                } else {
+                    tree.deleteAll(batchIds);
+                    for (int id : batchIds) {
+                        reference.remove(id);
+                    }
+                }
+                checkTree(random, tree, reference);
+                checkNames(tree, index, reference);
+            }
+        }
+
+        expectRejected(new int[] {1, 3, 2}, new String[] {"a", "b", "c"});
+        expectRejected(new int[] {1, 2, 2}, new String[] {"a", "b", "c"});
+        expectRejected(new int[] {1, 2}, new String[] {"a"});
+        System.out.println("AVLTreeBulkTest passed");
+    }
+
+    private static String randomName(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            name.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return (random.nextBoolean() ? "The " : "") + name;
+    }
+
+    // The index must find exactly the locations with a word starting with
+    // each prefix; the index is normalized to lower case
+    private static void checkNames(AVLTree tree, NameIndex index, TreeMap<Integer, String> reference) {
+        check(tree.getNameIndex() == index, "name index was rebuilt");
+        check(index.size() == reference.size(), "name index holds " + index.size() + " names");
+        for (String prefix : new String[] {"t", "the", "pa", "park", "lake", "ma", "st", "centralx"}) {
+            Set<Integer> expected = new TreeSet<>();
+            for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+                for (String word : entry.getValue().toLowerCase().split(" ")) {
+                    if (word.startsWith(prefix)) {
+                        expected.add(entry.getKey());
+                    }
+                }
+            }
+            Set<Integer> found = new TreeSet<>();
+            for (int id : index.findByPrefix(prefix, Integer.MAX_VALUE)) {
+                found.add(id);
+            }
+            check(found.equals(expected), "findByPrefix(\"" + prefix + "\") disagrees");
+        }
+    }
+
+    private static void expectRejected(int[] ids, String[] names) {
+        try {
+            AVLTree.fromSorted(ids, names);
+            check(false, "fromSorted accepted " + Arrays.toString(ids));
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// AVLTree's select, rank, countInRange and range cursors against a TreeMap
+// under random inserts, renames and deletes
+public class AVLTreeRankTest {
+    public static void main(String[] args) {
+        Random random = new Random(22);
+        for (int round = 0; round < 40; round++) {
+            AVLTree tree = new AVLTree();
+            TreeMap<Integer, String> reference = new TreeMap<>();
+            int keySpace = 1 + random.nextInt(round < 20 ? 100 : 5000);
+            for (int step = 0; step < 600; step++) {
+                int id = random.nextInt(keySpace) - keySpace / 4;
+                if (random.nextInt(3) == 0) {
+                    tree.delete(id);
+                    reference.remove(id);
+                } else {
+                    String name = "Location " + step;
+                    tree.insert(id, name);
+                    reference.put(id, name);
+                }
+                if (step % 50 == 0) {
+                    checkTree(random, tree, reference);
+                }
+            }
+            checkTree(random, tree, reference);
+        }
+
+        // Extreme IDs must not overflow the range arithmetic
+        AVLTree tree = new AVLTree();
+        TreeMap<Integer, String> reference = new TreeMap<>();
+        for (int id : new int[] {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE}) {
+            tree.insert(id, "Edge " + id);
+            reference.put(id, "Edge " + id);
+        }
+        checkTree(random, tree, reference);
+        check(tree.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE) == 5, "full range miscounted");
+        System.out.println("AVLTreeRankTest passed");
+    }
+}
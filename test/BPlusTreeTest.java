@@ -0,0 +1,90 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// BPlusTree against a TreeMap through inserts, renames and deletes. Rounds
+// grow the tree to three levels and then shrink it back to a single leaf, in
+// random, ascending and descending order, so leaves and inner nodes split,
+// borrow from either side and merge.
+public class BPlusTreeTest {
+    public static void main(String[] args) {
+        Random random = new Random(20);
+        for (int round = 0; round < 12; round++) {
+            int n = (round < 6) ? 1 + random.nextInt(300) : 10000 + random.nextInt(10000);
+            BPlusTree tree = new BPlusTree();
+            TreeMap<Integer, String> reference = new TreeMap<>();
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add(random.nextInt(4 * n));
+            }
+            order(random, ids, round % 3);
+
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                String name = "Location " + id + "." + i;
+                tree.insert(id, name);
+                reference.put(id, name);
+                if (random.nextInt(8) == 0) {
+                    int gone = random.nextInt(4 * n);
+                    tree.delete(gone);
+                    reference.remove(gone);
+                }
+                spotCheck(random, tree, reference, n);
+            }
+            checkContents(tree, reference);
+
+            List<Integer> present = new ArrayList<>(reference.keySet());
+            order(random, present, (round / 3) % 3);
+            for (int i = 0; i < present.size(); i++) {
+                tree.delete(present.get(i));
+                reference.remove(present.get(i));
+                tree.delete(-1 - i);
+                if (random.nextInt(10) == 0) {
+                    int id = random.nextInt(4 * n);
+                    tree.insert(id, "Back " + id);
+                    reference.put(id, "Back " + id);
+                }
+                spotCheck(random, tree, reference, n);
+                if (i % 997 == 0) {
+                    checkContents(tree, reference);
+                }
+            }
+            checkContents(tree, reference);
+        }
+        System.out.println("BPlusTreeTest passed");
+    }
+
+    // 0 shuffles, 1 sorts ascending, 2 sorts descending
+    private static void order(Random random, List<Integer> ids, int how) {
+        if (how == 0) {
+            Collections.shuffle(ids, random);
+        } else {
+            ids.sort((how == 1) ? Comparator.naturalOrder() : Comparator.reverseOrder());
+        }
+    }
+
+    private static void spotCheck(Random random, BPlusTree tree, TreeMap<Integer, String> reference, int n) {
+        check(tree.size() == reference.size(), "tree size " + tree.size() + ", expected " + reference.size());
+        for (int q = 0; q < 3; q++) {
+            int id = random.nextInt(4 * n + 2) - 1;
+            check(Objects.equals(tree.search(id), reference.get(id)),
+                    "search " + id + " gave " + tree.search(id) + ", expected " + reference.get(id));
+        }
+    }
+
+    private static void checkContents(BPlusTree tree, TreeMap<Integer, String> reference) {
+        Iterator<Map.Entry<Integer, String>> expected = reference.entrySet().iterator();
+        tree.inOrder((id, name) -> {
+            check(expected.hasNext(), "in-order walk visits " + id + " past the end");
+            Map.Entry<Integer, String> entry = expected.next();
+            check(id == entry.getKey() && name.equals(entry.getValue()),
+                    "in-order walk visits " + id + " as " + name + ", expected " + entry);
+        });
+        check(!expected.hasNext(), "in-order walk stops early");
+        for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+            check(entry.getValue().equals(tree.search(entry.getKey())), "search lost " + entry.getKey());
+        }
+    }
+}
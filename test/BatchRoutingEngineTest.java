@@ -0,0 +1,95 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Every tree handed out by BatchRoutingEngine, and every total distance,
+// against the reference Dijkstra, for all locations and for chosen sources
+// with unknown and repeated IDs. Consumers route on their own while reading
+// a tree, and the caller's own engine keeps its last query.
+public class BatchRoutingEngineTest {
+    public static void main(String[] args) {
+        Random random = new Random(14);
+        try (BatchRoutingEngine batch = new BatchRoutingEngine(3)) {
+            check(batch.getParallelism() == 3, "batch engine ignored its parallelism");
+            for (int round = 0; round < 30; round++) {
+                int n = 1 + random.nextInt(80);
+                GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+                CSRGraph snapshot = graph.freeze();
+
+                ShortestPathEngine engine = ShortestPathEngine.current();
+                int last = engine.singleSource(snapshot, 0);
+
+                // All locations: one tree each
+                Map<Integer, Integer> seen = new ConcurrentHashMap<>();
+                batch.forEachTree(snapshot, (sourceId, tree) -> {
+                    seen.merge(sourceId, 1, Integer::sum);
+                    checkTree(graph, snapshot, sourceId, tree);
+                });
+                check(seen.size() == n && !seen.containsValue(2), "forEachTree did not visit every location once");
+
+                // Chosen sources: unknown IDs skipped, repeats built again
+                int[] sourceIds = new int[random.nextInt(10)];
+                for (int i = 0; i < sourceIds.length; i++) {
+                    sourceIds[i] = (random.nextInt(5) == 0) ? -1 - i : idOf(random.nextInt(n));
+                }
+                Map<Integer, Integer> visits = new ConcurrentHashMap<>();
+                batch.forEachTree(snapshot, sourceIds, (sourceId, tree) -> {
+                    visits.merge(sourceId, 1, Integer::sum);
+                    // A query of the consumer's own must not touch the tree
+                    ShortestPathEngine.current().singleSource(snapshot, 0);
+                    checkTree(graph, snapshot, sourceId, tree);
+                });
+                Map<Integer, Integer> expectedVisits = new HashMap<>();
+                for (int id : sourceIds) {
+                    if (id >= 0) {
+                        expectedVisits.merge(id, 1, Integer::sum);
+                    }
+                }
+                check(visits.equals(expectedVisits), "forEachTree visited " + visits + ", expected " + expectedVisits);
+
+                long[] totals = batch.totalDistances(snapshot, sourceIds);
+                for (int i = 0; i < sourceIds.length; i++) {
+                    long expected = -1;
+                    if (sourceIds[i] >= 0) {
+                        expected = 0;
+                        for (int distance : referenceDistances(graph, sourceIds[i]).values()) {
+                            expected += distance;
+                        }
+                    }
+                    check(totals[i] == expected, "total from " + sourceIds[i] + " is " + totals[i] + ", expected " + expected);
+                }
+
+                check(engine.reachedCount() == last && engine.distanceTo(0) == 0,
+                        "batch routing overwrote the caller's last query");
+            }
+        }
+        System.out.println("BatchRoutingEngineTest passed");
+    }
+
+    // The tree reaches exactly the reference distances, and following the
+    // predecessors back from any node costs its distance
+    private static void checkTree(GraphCore graph, CSRGraph snapshot, int sourceId, ShortestPathEngine tree) {
+        Map<Integer, Integer> expected = referenceDistances(graph, sourceId);
+        check(tree.reachedCount() == expected.size(), "tree from " + sourceId + " reached " + tree.reachedCount()
+                + " locations, expected " + expected.size());
+        for (int r = 0; r < tree.reachedCount(); r++) {
+            int node = tree.reachedAt(r);
+            int id = snapshot.idAt(node);
+            check(Objects.equals(expected.get(id), tree.distanceTo(node)),
+                    "tree from " + sourceId + " has " + tree.distanceTo(node) + " to " + id + ", expected " + expected.get(id));
+            int previous = tree.previousOf(node);
+            if (previous < 0) {
+                check(id == sourceId, "tree from " + sourceId + " has no parent for " + id);
+            } else {
+                boolean road = false;
+                for (int e = snapshot.firstEdge(previous); e < snapshot.endEdge(previous); e++) {
+                    road |= snapshot.target(e) == node && tree.distanceTo(previous) + snapshot.weight(e) == tree.distanceTo(node);
+                }
+                check(road, "tree from " + sourceId + " has a bad parent for " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// SearchStrategy.BIDIRECTIONAL against the reference Dijkstra, including
+// start == end, disconnected pairs and unknown IDs
+public class BidirectionalDijkstraTest {
+    public static void main(String[] args) {
+        Random random = new Random(4);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(80);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 40, false);
+
+            for (int q = 0; q < 25; q++) {
+                int startId = idOf(random.nextInt(n));
+                int endId = (q % 10 == 0) ? startId : idOf(random.nextInt(n));
+                Integer expected = referenceDistances(graph, startId).get(endId);
+                checkRoute(graph, GraphAlgorithms.findShortestPath(graph, startId, endId, SearchStrategy.BIDIRECTIONAL),
+                        startId, endId, expected, "bidirectional");
+            }
+            check(!GraphAlgorithms.findShortestPath(graph, 1, idOf(0), SearchStrategy.BIDIRECTIONAL).isFound(),
+                    "bidirectional route from an unknown ID");
+        }
+        System.out.println("BidirectionalDijkstraTest passed");
+    }
+}
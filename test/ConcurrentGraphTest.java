@@ -0,0 +1,141 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Routing threads run against GraphCore snapshots while another thread edits
+// the graph. Every answer must match the reference Dijkstra on the snapshot
+// it was computed from, snapshots must never hold half an edit or go
+// backwards in version, and the live views must be iterable during edits.
+// A snapshot is also taken while another thread holds the writers' lock.
+public class ConcurrentGraphTest {
+    public static void main(String[] args) throws InterruptedException {
+        Random setup = new Random(8);
+        int n = 150;
+        GraphCore graph = randomCity(setup, n, 400, 30, false);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean editing = new AtomicBoolean(true);
+
+        Thread writer = new Thread(() -> {
+            Random random = new Random(80);
+            try {
+                for (int e = 0; e < 3000; e++) {
+                    int a = idOf(random.nextInt(n));
+                    int b = idOf(random.nextInt(n));
+                    switch (random.nextInt(10)) {
+                        case 0: graph.removeLocation(a); break;
+                        case 1: graph.addLocation(a, "Location " + a); break;
+                        case 2: case 3: case 4: graph.removeRoad(a, b); break;
+                        default: if (a != b) graph.addRoad(a, b, 1 + random.nextInt(30));
+                    }
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            } finally {
+                editing.set(false);
+            }
+        });
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            long seed = 81 + r;
+            readers.add(new Thread(() -> {
+                Random random = new Random(seed);
+                long lastVersion = -1;
+                try {
+                    while (editing.get()) {
+                        CSRGraph snapshot = graph.freeze();
+                        check(snapshot.getVersion() >= lastVersion, "snapshot version went backwards");
+                        lastVersion = snapshot.getVersion();
+                        checkSymmetric(snapshot);
+                        GraphCore frozen = GraphCore.fromSnapshot(snapshot);
+
+                        int startId = idOf(random.nextInt(n));
+                        int endId = idOf(random.nextInt(n));
+                        SearchStrategy strategy = random.nextBoolean() ? SearchStrategy.DIJKSTRA : SearchStrategy.BIDIRECTIONAL;
+                        RouteResult route = GraphAlgorithms.findShortestPath(snapshot, startId, endId, strategy);
+                        checkRoute(frozen, route, startId, endId, referenceDistances(frozen, startId).get(endId),
+                                "route on a snapshot taken during edits");
+
+                        int count = 0;
+                        for (String name : graph.getLocations().values()) {
+                            count += (name != null) ? 1 : 0;
+                        }
+                        check(count <= n, "live view lists unknown locations");
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError("concurrent routing failed: " + failures.peek());
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+
+        // After the edits the latest snapshot matches the live graph
+        for (int q = 0; q < 100; q++) {
+            int startId = idOf(setup.nextInt(n));
+            int endId = idOf(setup.nextInt(n));
+            checkRoute(graph, GraphAlgorithms.findShortestPath(graph, startId, endId), startId, endId,
+                    referenceDistances(graph, startId).get(endId), "route after edits");
+        }
+        checkFreezeWhileLocked(graph);
+        System.out.println("ConcurrentGraphTest passed");
+    }
+
+    // Every road must appear from both ends with the same distance
+    private static void checkSymmetric(CSRGraph snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            for (int e = snapshot.firstEdge(i); e < snapshot.endEdge(i); e++) {
+                int j = snapshot.target(e);
+                boolean found = false;
+                for (int back = snapshot.firstEdge(j); back < snapshot.endEdge(j); back++) {
+                    found |= snapshot.target(back) == i && snapshot.weight(back) == snapshot.weight(e);
+                }
+                check(found, "snapshot holds half of a road edit");
+            }
+        }
+    }
+
+    // After an edit, freeze() must build the new snapshot without waiting for
+    // a thread that holds the graph's lock
+    private static void checkFreezeWhileLocked(GraphCore graph) throws InterruptedException {
+        graph.addLocation(1, "Locked out");
+        long expected = graph.getVersion();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (graph) {
+                locked.countDown();
+                try {
+                    done.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        long started = System.nanoTime();
+        CSRGraph snapshot = graph.freeze();
+        long waited = System.nanoTime() - started;
+        done.countDown();
+        holder.join();
+        check(TimeUnit.NANOSECONDS.toSeconds(waited) < 5, "freeze() waited for the writers' lock");
+        check(snapshot.getVersion() == expected && snapshot.containsLocation(1), "freeze() missed the last edit");
+    }
+}
@@ -0,0 +1,105 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Components, articulation points and bridges against brute force: a
+// location is an articulation point if its neighbours stop reaching each
+// other without it, and a road is a bridge if its ends stop reaching each
+// other without it. Sparse cities give plenty of both.
+public class ConnectivityAnalysisTest {
+    public static void main(String[] args) {
+        Random random = new Random(16);
+        for (int round = 0; round < 80; round++) {
+            int n = 1 + random.nextInt(50);
+            GraphCore graph = randomCity(random, n, random.nextInt(2 * n), 10, false);
+            Map<Integer, List<GraphCore.Edge>> roads = graph.getAdjacencyList();
+            ConnectivityAnalysis analysis = ConnectivityAnalysis.analyze(graph);
+
+            // Components: same component exactly when reachable
+            Set<Integer> seen = new HashSet<>();
+            int components = 0;
+            for (int id : roads.keySet()) {
+                if (seen.add(id)) {
+                    components++;
+                    Set<Integer> reached = reachable(roads, id, -1, -1, -1);
+                    seen.addAll(reached);
+                    for (int other : roads.keySet()) {
+                        check(analysis.isConnected(id, other) == reached.contains(other), "isConnected disagrees");
+                    }
+                }
+            }
+            check(analysis.getComponentCount() == components, "wrong component count");
+
+            // Articulation points
+            Set<Integer> expectedPoints = new TreeSet<>();
+            for (int id : roads.keySet()) {
+                List<GraphCore.Edge> edges = roads.get(id);
+                if (edges.size() < 2) {
+                    continue;
+                }
+                Set<Integer> without = reachable(roads, edges.get(0).destination, id, -1, -1);
+                for (GraphCore.Edge edge : edges) {
+                    if (!without.contains(edge.destination)) {
+                        expectedPoints.add(id);
+                        break;
+                    }
+                }
+            }
+            Set<Integer> points = new TreeSet<>();
+            for (int id : analysis.getArticulationPoints()) {
+                points.add(id);
+            }
+            check(points.equals(expectedPoints), "articulation points " + points + ", expected " + expectedPoints);
+            for (int id : roads.keySet()) {
+                check(analysis.isArticulationPoint(id) == expectedPoints.contains(id), "isArticulationPoint disagrees");
+            }
+
+            // Bridges
+            Set<Long> expectedBridges = new HashSet<>();
+            for (int id : roads.keySet()) {
+                for (GraphCore.Edge edge : roads.get(id)) {
+                    boolean bridge = !reachable(roads, id, -1, id, edge.destination).contains(edge.destination);
+                    check(analysis.isBridge(id, edge.destination) == bridge, "isBridge disagrees");
+                    if (bridge) {
+                        expectedBridges.add(pair(id, edge.destination));
+                    }
+                }
+            }
+            int[] bridges = analysis.getBridges();
+            Set<Long> found = new HashSet<>();
+            for (int i = 0; i < bridges.length; i += 2) {
+                found.add(pair(bridges[i], bridges[i + 1]));
+            }
+            check(analysis.getBridgeCount() == expectedBridges.size() && bridges.length == 2 * expectedBridges.size()
+                    && found.equals(expectedBridges), "wrong bridges");
+        }
+        System.out.println("ConnectivityAnalysisTest passed");
+    }
+
+    // Locations reachable from start without visiting skipped or using the
+    // road between closedA and closedB
+    private static Set<Integer> reachable(Map<Integer, List<GraphCore.Edge>> roads, int start, int skipped,
+                                          int closedA, int closedB) {
+        Set<Integer> reached = new HashSet<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        reached.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (GraphCore.Edge edge : roads.get(current)) {
+                int next = edge.destination;
+                boolean closed = (current == closedA && next == closedB) || (current == closedB && next == closedA);
+                if (next != skipped && !closed && reached.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static long pair(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | (Math.max(a, b) & 0xffffffffL);
+    }
+}
@@ -0,0 +1,29 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// ContractionHierarchy routes and distances against the reference Dijkstra;
+// unpacked routes must follow real roads, not shortcuts
+public class ContractionHierarchyTest {
+    public static void main(String[] args) {
+        Random random = new Random(6);
+        for (int round = 0; round < 40; round++) {
+            int n = 1 + random.nextInt(120);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 25, false);
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph.freeze());
+
+            for (int q = 0; q < 30; q++) {
+                int startId = idOf(random.nextInt(n));
+                int endId = idOf(random.nextInt(n));
+                Integer expected = referenceDistances(graph, startId).get(endId);
+                checkRoute(graph, hierarchy.findShortestPath(startId, endId), startId, endId, expected, "ch route");
+                int distance = hierarchy.distance(startId, endId);
+                check(distance == ((expected == null) ? ShortestPathEngine.UNREACHABLE : expected), "ch distance");
+            }
+            check(!hierarchy.findShortestPath(1, idOf(0)).isFound(), "ch route from an unknown ID");
+        }
+        System.out.println("ContractionHierarchyTest passed");
+    }
+}
@@ -0,0 +1,89 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static Smart_City_Route.TestSupport.*;
+
+// DistanceMatrix against the reference Dijkstra, with unknown and repeated
+// IDs among the sources and targets, on the common pool and a pool of our
+// own. One-to-many searches must stop once their targets are settled, and
+// the matrix must leave the caller's own engine alone.
+public class DistanceMatrixTest {
+    public static void main(String[] args) {
+        Random random = new Random(13);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int round = 0; round < 40; round++) {
+                int n = 1 + random.nextInt(80);
+                GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+                CSRGraph snapshot = graph.freeze();
+                int[] sourceIds = randomIds(random, n);
+                int[] targetIds = randomIds(random, n);
+
+                // A query on this thread's engine survives the matrix
+                ShortestPathEngine engine = ShortestPathEngine.current();
+                int last = engine.singleSource(snapshot, 0);
+                int[] matrix = (round % 2 == 0) ? DistanceMatrix.manyToMany(graph, sourceIds, targetIds)
+                        : DistanceMatrix.manyToMany(snapshot, sourceIds, targetIds, pool);
+                check(engine.reachedCount() == last && engine.distanceTo(0) == 0,
+                        "the matrix overwrote the caller's last query");
+                check(matrix.length == sourceIds.length * targetIds.length, "matrix has the wrong size");
+                for (int s = 0; s < sourceIds.length; s++) {
+                    Map<Integer, Integer> expected = referenceDistances(graph, sourceIds[s]);
+                    int[] row = DistanceMatrix.oneToMany(snapshot, sourceIds[s], targetIds);
+                    for (int t = 0; t < targetIds.length; t++) {
+                        int distance = expected.getOrDefault(targetIds[t], ShortestPathEngine.UNREACHABLE);
+                        check(matrix[s * targetIds.length + t] == distance,
+                                "matrix " + sourceIds[s] + " -> " + targetIds[t] + " is " + matrix[s * targetIds.length + t]
+                                        + ", expected " + distance);
+                        check(row[t] == distance, "oneToMany " + sourceIds[s] + " -> " + targetIds[t] + " is " + row[t]);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        checkEarlyTermination();
+        System.out.println("DistanceMatrixTest passed");
+    }
+
+    // Mostly known IDs, with unknown ones and repeats mixed in
+    private static int[] randomIds(Random random, int n) {
+        int[] ids = new int[random.nextInt(12)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (random.nextInt(6) == 0) ? -1 - random.nextInt(3) : idOf(random.nextInt(n));
+        }
+        return ids;
+    }
+
+    // On a long line, targets next to the source settle only a few nodes;
+    // negative target indices and a negative start are unreachable
+    private static void checkEarlyTermination() {
+        GraphCore line = new GraphCore();
+        for (int i = 0; i < 1000; i++) {
+            line.addLocation(i, "Stop " + i);
+            if (i > 0) {
+                line.addRoad(i - 1, i, 1);
+            }
+        }
+        CSRGraph snapshot = line.freeze();
+        ShortestPathEngine engine = new ShortestPathEngine();
+        int[] out = new int[6];
+        engine.oneToMany(snapshot, snapshot.indexOf(500),
+                new int[] {-1, snapshot.indexOf(502), snapshot.indexOf(498), snapshot.indexOf(500), snapshot.indexOf(502)},
+                out, 1);
+        check(Arrays.equals(out, new int[] {0, ShortestPathEngine.UNREACHABLE, 2, 2, 0, 2}),
+                "oneToMany gave " + Arrays.toString(out));
+        check(engine.settledCount() <= 6, "oneToMany settled " + engine.settledCount() + " nodes for nearby targets");
+
+        Arrays.fill(out, 7);
+        engine.oneToMany(snapshot, -1, new int[] {snapshot.indexOf(1), snapshot.indexOf(2)}, out, 0);
+        check(out[0] == ShortestPathEngine.UNREACHABLE && out[1] == ShortestPathEngine.UNREACHABLE,
+                "oneToMany from no start reached something");
+        check(engine.settledCount() == 0, "oneToMany from no start searched");
+
+        engine.oneToMany(snapshot, snapshot.indexOf(0), new int[] {snapshot.indexOf(999)}, out, 0);
+        check(out[0] == 999 && engine.settledCount() == 1000, "far target did not settle the whole line");
+    }
+}
@@ -0,0 +1,100 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Trees kept by DynamicShortestPaths against the reference Dijkstra after
+// every edit: new, shorter, longer and closed roads, and removed and re-added
+// locations (which reuse mirror slots). Trees are registered and dropped as
+// the city changes; a tree whose source is removed stays empty.
+public class DynamicShortestPathsTest {
+    public static void main(String[] args) {
+        Random random = new Random(18);
+        for (int round = 0; round < 30; round++) {
+            int n = 2 + random.nextInt(40);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+            DynamicShortestPaths dynamic = new DynamicShortestPaths(graph);
+            check(dynamic.register(-1) == null, "registered a tree from an unknown location");
+
+            List<DynamicShortestPaths.Tree> trees = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                trees.add(dynamic.register(idOf(random.nextInt(n))));
+            }
+            checkTrees(graph, trees, n, "after registering");
+
+            for (int e = 0; e < 150; e++) {
+                int a = idOf(random.nextInt(n));
+                int b = idOf(random.nextInt(n));
+                int existing = graph.getRoadDistance(a, b);
+                String what;
+                switch (random.nextInt(12)) {
+                    case 0:
+                        graph.removeLocation(a);
+                        what = "removing " + a;
+                        break;
+                    case 1:
+                        graph.addLocation(a, "Location " + a);
+                        what = "adding " + a;
+                        break;
+                    case 2: case 3:
+                        graph.removeRoad(a, b);
+                        what = "closing " + a + " - " + b;
+                        break;
+                    case 4: case 5:
+                        if (existing > 0) {
+                            graph.addRoad(a, b, existing + 1 + random.nextInt(20));
+                        }
+                        what = "lengthening " + a + " - " + b;
+                        break;
+                    case 6: case 7:
+                        if (existing > 1) {
+                            graph.addRoad(a, b, 1 + random.nextInt(existing - 1));
+                        }
+                        what = "shortening " + a + " - " + b;
+                        break;
+                    case 8:
+                        DynamicShortestPaths.Tree tree = dynamic.register(a);
+                        if (tree != null) {
+                            trees.add(tree);
+                        }
+                        if (trees.size() > 5) {
+                            dynamic.unregister(trees.remove(0));
+                        }
+                        what = "registering " + a;
+                        break;
+                    default:
+                        if (a != b) {
+                            graph.addRoad(a, b, 1 + random.nextInt(30));
+                        }
+                        what = "adding " + a + " - " + b;
+                }
+                checkTrees(graph, trees, n, "after " + what);
+            }
+            dynamic.close();
+        }
+        System.out.println("DynamicShortestPathsTest passed");
+    }
+
+    private static void checkTrees(GraphCore graph, List<DynamicShortestPaths.Tree> trees, int n, String what) {
+        for (DynamicShortestPaths.Tree tree : trees) {
+            int sourceId = tree.getSourceId();
+            if (sourceId < 0) {
+                for (int i = 0; i < n; i++) {
+                    check(tree.distanceTo(idOf(i)) == ShortestPathEngine.UNREACHABLE && !tree.routeTo(idOf(i)).isFound(),
+                            what + ": tree from a removed source reaches " + idOf(i));
+                }
+                continue;
+            }
+            check(graph.containsLocation(sourceId), what + ": tree kept removed source " + sourceId);
+            Map<Integer, Integer> expected = referenceDistances(graph, sourceId);
+            for (int i = 0; i < n; i++) {
+                int id = idOf(i);
+                Integer distance = expected.get(id);
+                check(tree.distanceTo(id) == ((distance != null) ? distance : ShortestPathEngine.UNREACHABLE),
+                        what + ": tree from " + sourceId + " has " + tree.distanceTo(id) + " to " + id + ", expected " + distance);
+                checkRoute(graph, tree.routeTo(id), sourceId, id, distance, what);
+            }
+        }
+    }
+}
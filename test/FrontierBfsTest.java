@@ -0,0 +1,110 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Hop levels from FrontierBfs, sequential and parallel, against a plain
+// queue BFS. Besides small random cities, three shapes steer the level
+// switching: a wide star of long spokes keeps a frontier of thousands of
+// nodes top-down (the parallel CAS path), a dense core goes bottom-up, and
+// a long tail off that core switches back to top-down.
+public class FrontierBfsTest {
+    public static void main(String[] args) {
+        Random random = new Random(15);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(300);
+            GraphCore graph = randomCity(random, n, random.nextInt(4 * n), 30, false);
+            checkLevels(random, graph, idOf(random.nextInt(n)), "random city");
+        }
+
+        // 5000 spokes of 20 hops around a hub
+        GraphCore star = new GraphCore();
+        List<Integer> labels = shuffledLabels(random, 1 + 5000 * 20);
+        star.addLocation(labels.get(0), "Hub");
+        for (int spoke = 0; spoke < 5000; spoke++) {
+            int previous = labels.get(0);
+            for (int hop = 1; hop <= 20; hop++) {
+                int id = labels.get(spoke * 20 + hop);
+                star.addLocation(id, "Spoke " + spoke + " hop " + hop);
+                star.addRoad(previous, id, 1);
+                previous = id;
+            }
+        }
+        checkLevels(random, star, labels.get(0), "star");
+
+        // A dense core of 4000 nodes with a 600-node tail, plus a far node
+        GraphCore core = new GraphCore();
+        labels = shuffledLabels(random, 4601);
+        for (int i = 0; i < labels.size(); i++) {
+            core.addLocation(labels.get(i), "Location " + i);
+        }
+        for (int r = 0; r < 60000; r++) {
+            int a = random.nextInt(4000);
+            int b = random.nextInt(4000);
+            if (a != b) {
+                core.addRoad(labels.get(a), labels.get(b), 1);
+            }
+        }
+        for (int i = 4000; i < 4600; i++) {
+            core.addRoad(labels.get(i - 1), labels.get(i), 1);
+        }
+        checkLevels(random, core, labels.get(random.nextInt(4000)), "dense core");
+        checkLevels(random, core, labels.get(4599), "dense core from the tail");
+        checkLevels(random, core, labels.get(4600), "dense core from an isolated node");
+
+        check(allUnreached(FrontierBfs.hopLevels(core.freeze(), -5, false)), "unknown start reached something");
+        check(allUnreached(FrontierBfs.hopLevels(core.freeze(), -5, true)), "unknown start reached something in parallel");
+        System.out.println("FrontierBfsTest passed");
+    }
+
+    private static List<Integer> shuffledLabels(Random random, int n) {
+        List<Integer> labels = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            labels.add(idOf(i));
+        }
+        Collections.shuffle(labels, random);
+        return labels;
+    }
+
+    private static void checkLevels(Random random, GraphCore graph, int startId, String what) {
+        CSRGraph snapshot = graph.freeze();
+        Map<Integer, Integer> expected = referenceHops(graph, startId);
+        for (boolean parallel : new boolean[] {false, true}) {
+            int[] levels = FrontierBfs.hopLevels(snapshot, startId, parallel);
+            check(levels.length == snapshot.size(), what + ": levels have the wrong size");
+            for (int i = 0; i < levels.length; i++) {
+                int hops = expected.getOrDefault(snapshot.idAt(i), FrontierBfs.UNREACHED);
+                check(levels[i] == hops, what + (parallel ? " (parallel)" : "") + ": " + startId + " -> "
+                        + snapshot.idAt(i) + " is " + levels[i] + " hops, expected " + hops);
+            }
+        }
+    }
+
+    private static Map<Integer, Integer> referenceHops(GraphCore graph, int startId) {
+        Map<Integer, List<GraphCore.Edge>> adjacency = graph.getAdjacencyList();
+        Map<Integer, Integer> hops = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        hops.put(startId, 0);
+        queue.add(startId);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (GraphCore.Edge edge : adjacency.getOrDefault(current, Collections.emptyList())) {
+                if (!hops.containsKey(edge.destination)) {
+                    hops.put(edge.destination, hops.get(current) + 1);
+                    queue.add(edge.destination);
+                }
+            }
+        }
+        return hops;
+    }
+
+    private static boolean allUnreached(int[] levels) {
+        for (int level : levels) {
+            if (level != FrontierBfs.UNREACHED) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// findShortestPath, bfsTraversal and dfsTraversal against plain reference
+// implementations on random cities, including disconnected ones
+public class GraphAlgorithmsTest {
+    public static void main(String[] args) {
+        Random random = new Random(3);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(60);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+            CSRGraph snapshot = graph.freeze();
+
+            for (int q = 0; q < 20; q++) {
+                int startId = idOf(random.nextInt(n));
+                int endId = idOf(random.nextInt(n));
+                Map<Integer, Integer> expected = referenceDistances(graph, startId);
+                checkRoute(graph, GraphAlgorithms.findShortestPath(graph, startId, endId), startId, endId,
+                        expected.get(endId), "dijkstra");
+            }
+            check(!GraphAlgorithms.findShortestPath(graph, idOf(0), 1).isFound(), "route to an unknown ID");
+
+            int startId = idOf(random.nextInt(n));
+            checkBfs(graph, GraphAlgorithms.bfsTraversal(graph, startId), startId);
+            check(Arrays.equals(referenceDfs(snapshot, startId), GraphAlgorithms.dfsTraversal(graph, startId)),
+                    "dfs order differs from the reference");
+            check(GraphAlgorithms.bfsTraversal(graph, 1).length == 0, "bfs from an unknown ID");
+            check(GraphAlgorithms.dfsTraversal(graph, 1).length == 0, "dfs from an unknown ID");
+        }
+        System.out.println("GraphAlgorithmsTest passed");
+    }
+
+    // BFS visits the start's whole component once each, in non-decreasing hop count
+    private static void checkBfs(GraphCore graph, int[] order, int startId) {
+        Map<Integer, Integer> hops = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        hops.put(startId, 0);
+        queue.add(startId);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (GraphCore.Edge edge : graph.getAdjacencyList().get(current)) {
+                if (hops.putIfAbsent(edge.destination, hops.get(current) + 1) == null) {
+                    queue.add(edge.destination);
+                }
+            }
+        }
+        check(order.length == hops.size() && order[0] == startId, "bfs does not cover the component");
+        check(new HashSet<>(toList(order)).equals(hops.keySet()), "bfs visits the wrong locations");
+        for (int i = 1; i < order.length; i++) {
+            check(hops.get(order[i - 1]) <= hops.get(order[i]), "bfs visits a farther location first");
+        }
+    }
+
+    // Classic DFS that pushes every neighbour and marks locations when popped;
+    // it tries the snapshot's neighbours from the last one back
+    private static int[] referenceDfs(CSRGraph graph, int startId) {
+        List<Integer> order = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(graph.indexOf(startId));
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+            order.add(graph.idAt(current));
+            for (int e = graph.firstEdge(current); e < graph.endEdge(current); e++) {
+                stack.push(graph.target(e));
+            }
+        }
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,146 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// GraphLoader against the same records fed one by one through GraphCore:
+// the first of a repeated location ID wins, the last distance of a repeated
+// road wins, roads to unknown locations are skipped. Malformed records must
+// fail with the file and line they are on.
+public class GraphLoaderTest {
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("graph-loader-test");
+        try {
+            Random random = new Random(10);
+            for (int round = 0; round < 30; round++) {
+                checkRandomFiles(random, directory);
+            }
+            checkMalformed(directory);
+        } finally {
+            deleteTree(directory);
+        }
+        System.out.println("GraphLoaderTest passed");
+    }
+
+    private static void checkRandomFiles(Random random, Path directory) throws IOException {
+        int n = 1 + random.nextInt(60);
+        GraphCore reference = new GraphCore();
+        StringBuilder locations = new StringBuilder(random.nextBoolean() ? "id,name,latitude,longitude\n" : "");
+        int records = n + random.nextInt(n);
+        for (int r = 0; r < records; r++) {
+            int id = idOf(random.nextInt(n));
+            String name = "Stop " + r;
+            if (random.nextInt(8) == 0) {
+                locations.append("# comment\n\n");
+            }
+            if (random.nextBoolean()) {
+                double latitude = 6.85 + random.nextInt(1000) / 1000.0;
+                double longitude = 79.8 + random.nextInt(1000) / 1000.0;
+                locations.append(id).append(", ").append(name).append(" ,").append(latitude).append(",").append(longitude);
+                reference.addLocation(id, name, latitude, longitude);
+            } else {
+                locations.append(id).append(",").append(name);
+                reference.addLocation(id, name);
+            }
+            locations.append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+
+        StringBuilder roads = new StringBuilder("source,destination,distance\n");
+        int skipped = records - reference.getLocations().size();
+        for (int r = random.nextInt(4 * n); r > 0; r--) {
+            int a = idOf(random.nextInt(n + 3));
+            int b = idOf(random.nextInt(n + 3));
+            int distance = random.nextInt(100);
+            roads.append(a).append(",").append(b).append(",").append(distance).append("\n");
+            if (!reference.addRoad(a, b, distance)) {
+                skipped++;
+            }
+        }
+
+        Path locationsFile = directory.resolve("locations.csv");
+        Path roadsFile = directory.resolve("roads.csv");
+        Files.write(locationsFile, locations.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(roadsFile, roads.toString().getBytes(StandardCharsets.UTF_8));
+        GraphLoader loader = new GraphLoader();
+        CSRGraph loaded = loader.loadSnapshot(locationsFile, roadsFile);
+        check(loader.getStats().skipped == skipped, "loader skipped " + loader.getStats().skipped + ", expected " + skipped);
+
+        check(loaded.size() == reference.getLocations().size(), "loaded " + loaded.size() + " locations");
+        int edges = 0;
+        for (Map.Entry<Integer, List<GraphCore.Edge>> entry : reference.getAdjacencyList().entrySet()) {
+            int id = entry.getKey();
+            int index = loaded.indexOf(id);
+            check(index >= 0 && loaded.nameAt(index).equals(reference.getLocationName(id)), "wrong name for " + id);
+            GraphCore.Coordinates position = reference.getCoordinates(id);
+            check(position == null ? !loaded.hasCoordinates(index)
+                    : loaded.latitudeAt(index) == position.latitude && loaded.longitudeAt(index) == position.longitude,
+                    "wrong coordinates for " + id);
+            for (GraphCore.Edge edge : entry.getValue()) {
+                boolean found = false;
+                for (int e = loaded.firstEdge(index); e < loaded.endEdge(index); e++) {
+                    found |= loaded.idAt(loaded.target(e)) == edge.destination && loaded.weight(e) == edge.distance;
+                }
+                check(found, "road " + id + " - " + edge.destination + " lost or has the wrong distance");
+                edges++;
+            }
+        }
+        check(loaded.edgeCount() == edges, "loaded " + loaded.edgeCount() + " road slots, expected " + edges);
+
+        // The editable graph built from the load agrees as well
+        GraphCore graph = loader.loadGraph(locationsFile, roadsFile);
+        check(sameRoads(graph, reference), "loadGraph disagrees with the records");
+    }
+
+    private static boolean sameRoads(GraphCore a, GraphCore b) {
+        Map<Integer, List<GraphCore.Edge>> left = a.getAdjacencyList();
+        Map<Integer, List<GraphCore.Edge>> right = b.getAdjacencyList();
+        if (!left.keySet().equals(right.keySet())) {
+            return false;
+        }
+        for (int id : left.keySet()) {
+            for (GraphCore.Edge edge : right.get(id)) {
+                if (a.getRoadDistance(id, edge.destination) != edge.distance) {
+                    return false;
+                }
+            }
+            if (left.get(id).size() != right.get(id).size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkMalformed(Path directory) throws IOException {
+        String goodLocations = "1,Town Hall\n2,Harbour\n";
+        String goodRoads = "1,2,5\n";
+        expectMalformed(directory, "1,Town Hall\n-2,Harbour\n", goodRoads, "locations file at line 2");
+        expectMalformed(directory, "1,Town Hall\nx2,Harbour\n", goodRoads, "locations file at line 2");
+        expectMalformed(directory, "1,Town Hall\n2\n", goodRoads, "locations file at line 2");
+        expectMalformed(directory, "1,Town Hall,7.0\n", goodRoads, "locations file at line 1");
+        expectMalformed(directory, "1,Town Hall,north,79.8\n", goodRoads, "locations file at line 1");
+        expectMalformed(directory, "1,Town Hall\n2147483648,Harbour\n", goodRoads, "locations file at line 2");
+        expectMalformed(directory, goodLocations, "1,2,-5\n", "roads file at line 1");
+        expectMalformed(directory, goodLocations, "1,2,5\n1,2\n", "roads file at line 2");
+        expectMalformed(directory, goodLocations, "1,2,5\n1,-2,5\n", "roads file at line 2");
+        expectMalformed(directory, goodLocations, "1,2,\n", "roads file at line 1");
+        expectMalformed(directory, goodLocations, "1,2,99999999999\n", "roads file at line 1");
+    }
+
+    private static void expectMalformed(Path directory, String locations, String roads, String where) throws IOException {
+        Path locationsFile = directory.resolve("bad-locations.csv");
+        Path roadsFile = directory.resolve("bad-roads.csv");
+        Files.write(locationsFile, locations.getBytes(StandardCharsets.UTF_8));
+        Files.write(roadsFile, roads.getBytes(StandardCharsets.UTF_8));
+        try {
+            new GraphLoader().loadSnapshot(locationsFile, roadsFile);
+            check(false, "accepted a malformed record in " + where);
+        } catch (IOException e) {
+            check(e.getMessage().endsWith(where), "wrong error for " + where + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Snapshot files: random cities and location trees must read back exactly as
+// written, and every kind of damage read() guards against must fail with an
+// IOException naming the file, never with an index error or an allocation
+// sized by a corrupt header.
+public class GraphSnapshotFileTest {
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("snapshot-test");
+        try {
+            Random random = new Random(11);
+            for (int round = 0; round < 30; round++) {
+                checkRoundTrip(random, directory.resolve("city.snapshot"));
+            }
+            checkCorruption(random, directory.resolve("damaged.snapshot"));
+        } finally {
+            deleteTree(directory);
+        }
+        System.out.println("GraphSnapshotFileTest passed");
+    }
+
+    private static void checkRoundTrip(Random random, Path file) throws IOException {
+        int n = random.nextInt(60);
+        GraphCore graph = randomCity(random, n, random.nextInt(3 * n + 1), 30, random.nextBoolean());
+        graph.addLocation(idOf(n), "Ünïcödé Junction");
+        CSRGraph written = graph.freeze();
+
+        // A tree that differs from the graph: some locations missing, some renamed
+        AVLTree tree = new AVLTree();
+        for (int i = 0; i <= n; i++) {
+            if (random.nextInt(4) != 0) {
+                tree.insert(idOf(i), (random.nextBoolean() ? "Renamed " : "") + written.getLocationName(idOf(i)));
+            }
+        }
+
+        boolean withTree = random.nextBoolean();
+        if (withTree) {
+            GraphSnapshotFile.write(file, written, tree);
+        } else {
+            GraphSnapshotFile.write(file, written);
+        }
+        GraphSnapshotFile snapshot = GraphSnapshotFile.read(file);
+        CSRGraph read = snapshot.getGraph();
+
+        check(read.getVersion() == written.getVersion(), "version changed");
+        check(Arrays.equals(read.ids, written.ids) && Arrays.equals(read.names, written.names)
+                && Arrays.equals(read.offsets, written.offsets) && Arrays.equals(read.targets, written.targets)
+                && Arrays.equals(read.weights, written.weights), "graph changed in the round trip");
+        check(Arrays.equals(read.latitudes, written.latitudes) && Arrays.equals(read.longitudes, written.longitudes),
+                "coordinates changed in the round trip");
+
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        if (withTree) {
+            tree.inOrder(expected::put);
+        } else {
+            for (int i = 0; i < written.size(); i++) {
+                expected.put(written.idAt(i), written.nameAt(i));
+            }
+        }
+        checkTree(random, snapshot.getLocationTree(), expected);
+    }
+
+    private static void checkCorruption(Random random, Path file) throws IOException {
+        GraphCore graph = new GraphCore();
+        for (int i = 0; i < 5; i++) {
+            graph.addLocation(10 + i, "Stop " + i, 6.9 + i / 100.0, 79.85);
+        }
+        graph.addRoad(10, 11, 4);
+        graph.addRoad(11, 12, 6);
+        graph.addRoad(12, 14, 2);
+        GraphSnapshotFile.write(file, graph.freeze());
+        byte[] good = Files.readAllBytes(file);
+        int size = 5;
+        int edges = 6;
+
+        // Section starts, laid out as write() does
+        int ids = 64;
+        int offsets = ids + aligned(4 * size);
+        int targets = offsets + aligned(4 * (size + 1));
+        int weights = targets + aligned(4 * edges);
+        int latitudes = weights + aligned(4 * edges);
+        int nameOffsets = latitudes + 2 * 8 * size;
+        int nameBlob = nameOffsets + aligned(4 * (size + 1));
+        int treeIds = nameBlob + aligned(5 * "Stop 0".length());
+        int treeNameOffsets = treeIds + aligned(4 * size);
+
+        expectCorrupt(file, good, "not a city snapshot", 0, 0);
+        expectCorrupt(file, good, "unsupported snapshot version", 4, 2);
+        expectCorrupt(file, good, "counts", 24, -1);
+        expectCorrupt(file, good, "counts", 28, -1);
+        expectCorrupt(file, good, "counts", 32, Integer.MAX_VALUE);
+        expectCorrupt(file, good, "counts", 44, -1);
+        expectCorrupt(file, good, "bytes", 28, 400_000_000);
+        expectCorrupt(file, good, "bytes", 24, 100_000_000);
+        expectCorrupt(file, good, "bytes", 32, 300_000_000);
+        expectCorrupt(file, good, "bytes", 40, 40);
+        expectCorrupt(file, good, "name offsets do not match", 40, 31);
+        expectCorrupt(file, good, "location IDs out of order", ids + 4, 10);
+        expectCorrupt(file, good, "location tree out of order", treeIds + 8, 99);
+        expectCorrupt(file, good, "edge offsets do not match", offsets, 1);
+        expectCorrupt(file, good, "edge offsets do not match", offsets + 4 * size, edges - 1);
+        expectCorrupt(file, good, "edge offsets decrease", offsets + 8, 0);
+        expectCorrupt(file, good, "leads to no location", targets + 4, size);
+        expectCorrupt(file, good, "leads to no location", targets, -1);
+        expectCorrupt(file, good, "negative distance", weights + 8, -3);
+        expectCorrupt(file, good, "name offsets do not match", nameOffsets, 1);
+        expectCorrupt(file, good, "name offsets do not match", nameOffsets + 4 * size, 29);
+        expectCorrupt(file, good, "name offsets decrease", nameOffsets + 8, 1);
+        expectCorrupt(file, good, "name offsets decrease", treeNameOffsets + 8, 1);
+
+        // Cut anywhere: short files and lost tails
+        for (int length : new int[] {0, 10, 63, 64, good.length / 2, good.length - 8}) {
+            Files.write(file, Arrays.copyOf(good, length));
+            expectFailure(file, length < 64 ? "too short" : "corrupt");
+        }
+        // Random single-byte damage may go unnoticed in a name, but must never
+        // escape as anything other than an IOException
+        for (int trial = 0; trial < 500; trial++) {
+            byte[] damaged = good.clone();
+            damaged[random.nextInt(damaged.length)] ^= (byte) (1 + random.nextInt(255));
+            Files.write(file, damaged);
+            try {
+                GraphSnapshotFile.read(file).getLocationTree();
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static void expectCorrupt(Path file, byte[] good, String reason, int at, int value) throws IOException {
+        byte[] damaged = good.clone();
+        ByteBuffer.wrap(damaged).order(ByteOrder.LITTLE_ENDIAN).putInt(at, value);
+        Files.write(file, damaged);
+        expectFailure(file, reason);
+    }
+
+    private static void expectFailure(Path file, String reason) {
+        try {
+            GraphSnapshotFile.read(file);
+            check(false, "read a snapshot damaged by " + reason);
+        } catch (IOException e) {
+            check(e.getMessage().contains(reason) && e.getMessage().contains(file.toString()),
+                    "expected \"" + reason + "\", got " + e.getMessage());
+        }
+    }
+
+    private static int aligned(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
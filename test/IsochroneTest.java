@@ -0,0 +1,65 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Isochrones against the reference Dijkstra cut off at the budget, one origin
+// at a time and in batches on the common pool and a small pool of our own.
+// Batches must leave the caller's own engine and its last query alone.
+public class IsochroneTest {
+    public static void main(String[] args) {
+        Random random = new Random(25);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int round = 0; round < 40; round++) {
+                int n = 1 + random.nextInt(120);
+                GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+                CSRGraph snapshot = graph.freeze();
+                int budget = random.nextInt(120) - 5;
+
+                int[] origins = new int[1 + random.nextInt(20)];
+                for (int i = 0; i < origins.length; i++) {
+                    origins[i] = (i == 0) ? 1 : idOf(random.nextInt(n));
+                }
+                ShortestPathEngine engine = ShortestPathEngine.current();
+                int last = engine.singleSource(snapshot, 0);
+                Isochrone[] common = Isochrone.computeAll(snapshot, origins, budget);
+                Isochrone[] own = Isochrone.computeAll(snapshot, origins, budget, pool);
+                check(engine.reachedCount() == last && engine.distanceTo(0) == 0,
+                        "computeAll overwrote the caller's last query");
+                for (int i = 0; i < origins.length; i++) {
+                    checkIsochrone(graph, Isochrone.compute(graph, origins[i], budget), origins[i], budget);
+                    checkIsochrone(graph, common[i], origins[i], budget);
+                    checkIsochrone(graph, own[i], origins[i], budget);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("IsochroneTest passed");
+    }
+
+    private static void checkIsochrone(GraphCore graph, Isochrone isochrone, int originId, int budget) {
+        check(isochrone.getOriginId() == originId && isochrone.getBudget() == budget, "isochrone for the wrong query");
+        Map<Integer, Integer> expected = new HashMap<>();
+        if (budget >= 0) {
+            for (Map.Entry<Integer, Integer> entry : referenceDistances(graph, originId).entrySet()) {
+                if (entry.getValue() <= budget) {
+                    expected.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        check(isochrone.size() == expected.size(),
+                "isochrone of " + originId + " within " + budget + " has " + isochrone.size() + ", expected " + expected.size());
+        for (int i = 0; i < isochrone.size(); i++) {
+            Integer distance = expected.get(isochrone.getLocationId(i));
+            check(distance != null && distance == isochrone.getDistance(i),
+                    "isochrone has " + isochrone.getLocationId(i) + " at " + isochrone.getDistance(i) + ", expected " + distance);
+        }
+        if (isochrone.size() > 0) {
+            check(isochrone.getLocationId(0) == originId && isochrone.getDistance(0) == 0, "origin is not first");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package Smart_City_Route;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static Smart_City_Route.TestSupport.*;
+
+// ALT routing against the reference Dijkstra, before and after edits that
+// force a rebuild on a newer snapshot (including removing a landmark).
+// Building must leave the caller's own engine and its last query alone.
+public class LandmarkIndexTest {
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            run(random, pool);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("LandmarkIndexTest passed");
+    }
+
+    private static void run(Random random, ForkJoinPool pool) {
+        for (int round = 0; round < 40; round++) {
+            int n = 1 + random.nextInt(100);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+            CSRGraph first = graph.freeze();
+
+            // A query on this thread's engine survives the build
+            ShortestPathEngine engine = ShortestPathEngine.current();
+            int distance = engine.dijkstra(first, 0, first.size() - 1);
+            int[] path = new int[engine.pathLength()];
+            engine.copyPath(path);
+            LandmarkIndex landmarks = (round % 2 == 0) ? LandmarkIndex.build(first, 1 + random.nextInt(6))
+                    : LandmarkIndex.build(first, 1 + random.nextInt(6), pool);
+            int[] after = new int[engine.pathLength()];
+            engine.copyPath(after);
+            check(Arrays.equals(path, after) && engine.distanceTo(first.size() - 1) == distance,
+                    "building landmarks overwrote the caller's last query");
+
+            checkQueries(random, graph, landmarks, n, "alt");
+
+            // Bounds are lower bounds
+            CSRGraph snapshot = landmarks.getGraph();
+            int startId = idOf(random.nextInt(n));
+            for (Map.Entry<Integer, Integer> entry : referenceDistances(graph, startId).entrySet()) {
+                check(landmarks.lowerBound(snapshot.indexOf(startId), snapshot.indexOf(entry.getKey())) <= entry.getValue(),
+                        "landmark bound above the road distance");
+            }
+
+            // Edit the city, drop a landmark, and rebuild on the new snapshot
+            for (int e = 0; e < 10 && n > 1; e++) {
+                int a = idOf(random.nextInt(n));
+                int b = idOf(random.nextInt(n));
+                if (random.nextBoolean()) {
+                    graph.removeRoad(a, b);
+                } else if (a != b) {
+                    graph.addRoad(a, b, 1 + random.nextInt(30));
+                }
+            }
+            int removed = landmarks.getLandmarkIds()[0];
+            graph.removeLocation(removed);
+            LandmarkIndex rebuilt = (round % 2 == 0) ? landmarks.rebuild(graph.freeze())
+                    : landmarks.rebuild(graph.freeze(), pool);
+            for (int id : rebuilt.getLandmarkIds()) {
+                check(id != removed, "rebuilt index kept a removed landmark");
+            }
+            checkQueries(random, graph, rebuilt, n, "alt after rebuild");
+        }
+    }
+
+    private static void checkQueries(Random random, GraphCore graph, LandmarkIndex landmarks, int n, String what) {
+        for (int q = 0; q < 25; q++) {
+            int startId = idOf(random.nextInt(n));
+            int endId = idOf(random.nextInt(n));
+            if (!graph.containsLocation(startId) || !graph.containsLocation(endId)) {
+                continue;
+            }
+            Integer expected = referenceDistances(graph, startId).get(endId);
+            checkRoute(graph, landmarks.findShortestPath(startId, endId), startId, endId, expected, what);
+        }
+    }
+}
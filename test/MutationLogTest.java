@@ -0,0 +1,242 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// Crash recovery: a data directory must always recover to the graph as of
+// the last durable edit, with every edit applied exactly once. Covers plain
+// replay, torn and damaged tails, a snapshot written without its segments
+// being dropped (a crash mid-compaction), recovery after compact(), records
+// larger than the read buffer, and edits after close().
+public class MutationLogTest {
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(12);
+        for (int round = 0; round < 4; round++) {
+            Path directory = Files.createTempDirectory("mutation-log-test");
+            try {
+                checkReplay(random, directory);
+                checkTornTail(random, directory);
+                checkSnapshotVersionSkip(random, directory);
+                checkCompaction(random, directory);
+            } finally {
+                deleteTree(directory);
+            }
+        }
+        Path directory = Files.createTempDirectory("mutation-log-test");
+        try {
+            checkLargeSegment(directory);
+            checkEditAfterClose(directory);
+        } finally {
+            deleteTree(directory);
+        }
+        System.out.println("MutationLogTest passed");
+    }
+
+    // Random edits through an open log; returns the number that changed the graph
+    private static int edit(Random random, GraphCore graph, TreeMap<Integer, String> names, int count) {
+        int changed = 0;
+        for (int e = 0; e < count; e++) {
+            int a = idOf(random.nextInt(40));
+            int b = idOf(random.nextInt(40));
+            boolean applied;
+            switch (random.nextInt(8)) {
+                case 0:
+                    applied = graph.addLocation(a, "Stop " + e, 6.9 + random.nextDouble() / 10, 79.85);
+                    if (applied) names.put(a, "Stop " + e);
+                    break;
+                case 1:
+                    applied = graph.addLocation(a, "Ünplaced " + e);
+                    if (applied) names.put(a, "Ünplaced " + e);
+                    break;
+                case 2:
+                    applied = graph.removeLocation(a);
+                    names.remove(a);
+                    break;
+                case 3:
+                    applied = graph.setCoordinates(a, 7 + random.nextDouble() / 10, 79.9);
+                    break;
+                case 4:
+                    applied = graph.removeRoad(a, b);
+                    break;
+                default:
+                    applied = a != b && graph.addRoad(a, b, 1 + random.nextInt(50));
+            }
+            changed += applied ? 1 : 0;
+        }
+        return changed;
+    }
+
+    private static MutationLog.Recovery recoverAndCheck(Path directory, GraphCore expected,
+                                                        TreeMap<Integer, String> names, String what) throws IOException {
+        MutationLog.Recovery recovery = MutationLog.recover(directory);
+        checkSameCity(expected, recovery.getGraph(), what);
+        check(recovery.getGraph().getVersion() == expected.getVersion(), what + ": version differs");
+        TreeMap<Integer, String> tree = new TreeMap<>();
+        recovery.getLocationTree().inOrder(tree::put);
+        check(tree.equals(names), what + ": location tree differs");
+        return recovery;
+    }
+
+    private static void checkReplay(Random random, Path directory) throws IOException {
+        MutationLog.Recovery start = MutationLog.recover(directory);
+        GraphCore graph = start.getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        MutationLog log = MutationLog.open(directory, graph, random.nextInt(3));
+        int changed = edit(random, graph, names, 300);
+        log.sync();
+        changed += edit(random, graph, names, 100);
+        log.close();
+
+        MutationLog.Recovery recovery = recoverAndCheck(directory, graph, names, "replay");
+        check(recovery.getReplayedEdits() == changed, "replayed " + recovery.getReplayedEdits() + " of " + changed);
+    }
+
+    // Continues the directory left by checkReplay
+    private static void checkTornTail(Random random, Path directory) throws IOException {
+        MutationLog.Recovery start = MutationLog.recover(directory);
+        GraphCore graph = start.getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        start.getLocationTree().inOrder(names::put);
+        MutationLog log = MutationLog.open(directory, graph, 0);
+        edit(random, graph, names, 50);
+        log.sync();
+        Path segment = lastSegment(directory);
+        long intact = Files.size(segment);
+        GraphCore expected = GraphCore.fromSnapshot(graph.freeze());
+        TreeMap<Integer, String> expectedNames = new TreeMap<>(names);
+
+        graph.addLocation(1, "Lost in the crash");
+        log.close();
+        long full = Files.size(segment);
+
+        // Cut the next record short, then damage its checksum instead
+        for (int damage = 0; damage < 2; damage++) {
+            byte[] bytes = Files.readAllBytes(segment);
+            if (damage == 0) {
+                bytes = Arrays.copyOf(bytes, (int) (intact + 1 + random.nextInt((int) (full - intact) - 1)));
+            } else {
+                bytes[(int) intact + 4] ^= 1;
+            }
+            Path copy = directory.resolve("torn");
+            Files.createDirectories(copy);
+            for (Path file : files(directory)) {
+                if (!Files.isDirectory(file)) {
+                    Files.copy(file, copy.resolve(file.getFileName()));
+                }
+            }
+            Files.write(copy.resolve(segment.getFileName()), bytes);
+            recoverAndCheck(copy, expected, expectedNames, damage == 0 ? "torn tail" : "damaged tail");
+            check(Files.size(copy.resolve(segment.getFileName())) == intact, "damaged tail was not truncated");
+            deleteTree(copy);
+        }
+        names.put(1, "Lost in the crash");
+        recoverAndCheck(directory, graph, names, "undamaged log");
+    }
+
+    // A snapshot that already holds some logged edits, as after a crash
+    // between writing it and dropping the folded segments
+    private static void checkSnapshotVersionSkip(Random random, Path directory) throws IOException {
+        MutationLog.Recovery start = MutationLog.recover(directory);
+        GraphCore graph = start.getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        start.getLocationTree().inOrder(names::put);
+        MutationLog log = MutationLog.open(directory, graph, 1);
+        edit(random, graph, names, 100);
+        log.sync();
+        GraphSnapshotFile.write(directory.resolve(MutationLog.SNAPSHOT_FILE), graph.freeze());
+        int after = edit(random, graph, names, 100);
+        log.close();
+
+        MutationLog.Recovery recovery = recoverAndCheck(directory, graph, names, "snapshot plus log");
+        check(recovery.getReplayedEdits() == after,
+                "replayed " + recovery.getReplayedEdits() + " edits, expected only the " + after + " after the snapshot");
+    }
+
+    private static void checkCompaction(Random random, Path directory) throws IOException {
+        MutationLog.Recovery start = MutationLog.recover(directory);
+        GraphCore graph = start.getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        start.getLocationTree().inOrder(names::put);
+        MutationLog log = MutationLog.open(directory, graph, 1);
+        edit(random, graph, names, 200);
+        log.compact().join();
+        check(files(directory).size() == 2, "compaction left old segments: " + files(directory));
+        int after = edit(random, graph, names, 100);
+        log.close();
+
+        MutationLog.Recovery recovery = recoverAndCheck(directory, graph, names, "after compaction");
+        check(recovery.getReplayedEdits() == after, "replayed " + recovery.getReplayedEdits() + " of " + after);
+    }
+
+    // Segments span many read chunks, and one record is larger than a chunk
+    private static void checkLargeSegment(Path directory) throws IOException {
+        GraphCore graph = MutationLog.recover(directory).getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        MutationLog log = MutationLog.open(directory, graph, 5);
+        char[] longName = new char[3 << 20];
+        Arrays.fill(longName, 'x');
+        for (int i = 0; i < 40_000; i++) {
+            String name = (i == 20_000) ? new String(longName) : "Stop " + i;
+            graph.addLocation(i, name);
+            names.put(i, name);
+            if (i > 0) {
+                graph.addRoad(i - 1, i, 1 + i % 7);
+            }
+        }
+        log.close();
+        check(Files.size(lastSegment(directory)) > 4 << 20, "segment too small to span several chunks");
+        recoverAndCheck(directory, graph, names, "large segment");
+    }
+
+    // Edits after close() must not throw, and must not reach the log
+    private static void checkEditAfterClose(Path directory) throws IOException {
+        MutationLog.Recovery start = MutationLog.recover(directory);
+        GraphCore graph = start.getGraph();
+        TreeMap<Integer, String> names = new TreeMap<>();
+        start.getLocationTree().inOrder(names::put);
+        MutationLog log = MutationLog.open(directory, graph, 0);
+        graph.addLocation(-5, "Logged");
+        names.put(-5, "Logged");
+        log.close();
+        GraphCore expected = GraphCore.fromSnapshot(graph.freeze());
+        check(log.getFailure() == null, "clean close reported a failure");
+
+        int[] heard = new int[1];
+        graph.addChangeListener(new GraphCore.ChangeListener() {
+            @Override
+            public void locationAdded(int locationId, String locationName, GraphCore.Coordinates coordinates) {
+                heard[0]++;
+            }
+        });
+        check(graph.addLocation(-6, "Not logged"), "edit after close failed");
+        check(heard[0] == 1, "a listener missed an edit after close");
+        recoverAndCheck(directory, expected, names, "edits after close");
+    }
+
+    private static Path lastSegment(Path directory) throws IOException {
+        Path last = null;
+        for (Path file : files(directory)) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".log") && (last == null || name.compareTo(last.getFileName().toString()) > 0)) {
+                last = file;
+            }
+        }
+        return last;
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,173 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// NameIndex lookups against brute force over the normalized names held in a
+// TreeMap, while the owning AVLTree adds, renames and removes locations.
+// findByPrefix must return every ID with a matching name or word in name
+// order, cut at the limit; findSimilar every ID whose name, or a word
+// onwards, is within the edit budget, closest first.
+public class NameIndexTest {
+    private static final String[] WORDS = {
+        "park", "parks", "port", "central", "centre", "station", "street", "st", "lake", "lane", "road", "north", "nort"
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(21);
+        for (int round = 0; round < 20; round++) {
+            int n = 1 + random.nextInt(250);
+            AVLTree tree = new AVLTree();
+            TreeMap<Integer, String> names = new TreeMap<>();
+            for (int i = 0; i < n / 2; i++) {
+                put(random, tree, names, n);
+            }
+            NameIndex index = tree.getNameIndex();
+            for (int e = 0; e < n; e++) {
+                if (random.nextInt(4) == 0 && !names.isEmpty()) {
+                    int id = names.firstKey() + random.nextInt(names.lastKey() - names.firstKey() + 1);
+                    tree.delete(id);
+                    names.remove(id);
+                } else {
+                    put(random, tree, names, n);
+                }
+            }
+            check(index.size() == names.size(), "index holds " + index.size() + " names, expected " + names.size());
+
+            for (int q = 0; q < 40; q++) {
+                checkPrefix(random, index, names);
+                checkSimilar(random, index, names);
+            }
+        }
+        System.out.println("NameIndexTest passed");
+    }
+
+    // Add or rename a location to a few random words, in random case and spacing
+    private static void put(Random random, AVLTree tree, Map<Integer, String> names, int n) {
+        StringBuilder name = new StringBuilder();
+        for (int w = random.nextInt(3); w >= 0; w--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            name.append(random.nextBoolean() ? word : word.toUpperCase()).append(random.nextBoolean() ? " " : "  ");
+        }
+        int id = idOf(random.nextInt(n));
+        String text = (random.nextBoolean() ? " " : "") + name;
+        tree.insert(id, text);
+        names.put(id, text);
+    }
+
+    private static void checkPrefix(Random random, NameIndex index, Map<Integer, String> names) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        String prefix = word.substring(0, random.nextInt(word.length() + 1));
+        if (random.nextInt(4) == 0) {
+            prefix = prefix.toUpperCase() + " ";
+        }
+        String key = NameIndex.normalize(prefix);
+
+        // Each ID sorts by its smallest name or word suffix with the prefix
+        Map<Integer, String> expected = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            for (String suffix : keys(entry.getValue())) {
+                if (suffix.startsWith(key)) {
+                    expected.merge(entry.getKey(), suffix, (a, b) -> (a.compareTo(b) <= 0) ? a : b);
+                }
+            }
+        }
+
+        int[] all = index.findByPrefix(prefix, Integer.MAX_VALUE);
+        check(toSet(all).equals(expected.keySet()) && all.length == expected.size(),
+                "prefix '" + prefix + "' found " + Arrays.toString(all) + ", expected " + expected.keySet());
+        for (int i = 1; i < all.length; i++) {
+            check(expected.get(all[i - 1]).compareTo(expected.get(all[i])) <= 0,
+                    "prefix '" + prefix + "' is out of name order at " + all[i]);
+        }
+        int limit = random.nextInt(6);
+        int[] some = index.findByPrefix(prefix, limit);
+        check(Arrays.equals(some, Arrays.copyOf(all, Math.min(limit, all.length))),
+                "prefix '" + prefix + "' with limit " + limit + " gave " + Arrays.toString(some));
+    }
+
+    private static void checkSimilar(Random random, NameIndex index, Map<Integer, String> names) {
+        String query = misspell(random, WORDS[random.nextInt(WORDS.length)]);
+        if (random.nextInt(3) == 0) {
+            query = query + " " + misspell(random, WORDS[random.nextInt(WORDS.length)]);
+        }
+        int maxEdits = random.nextInt(4);
+        String key = NameIndex.normalize(query);
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            for (String suffix : keys(entry.getValue())) {
+                int distance = levenshtein(suffix, key);
+                if (distance <= maxEdits) {
+                    expected.merge(entry.getKey(), distance, Math::min);
+                }
+            }
+        }
+
+        int[] all = index.findSimilar(query, maxEdits, Integer.MAX_VALUE);
+        check(toSet(all).equals(expected.keySet()) && all.length == expected.size(),
+                "'" + query + "' within " + maxEdits + " found " + Arrays.toString(all) + ", expected " + expected);
+        for (int i = 1; i < all.length; i++) {
+            check(expected.get(all[i - 1]) <= expected.get(all[i]), "'" + query + "' is not closest first at " + all[i]);
+        }
+        int limit = random.nextInt(6);
+        int[] some = index.findSimilar(query, maxEdits, limit);
+        check(some.length == Math.min(limit, all.length), "'" + query + "' with limit " + limit + " gave " + some.length);
+        for (int i = 0; i < some.length; i++) {
+            check(expected.containsKey(some[i]) && expected.get(some[i]).equals(expected.get(all[i])),
+                    "'" + query + "' with limit " + limit + " skipped a closer match");
+        }
+    }
+
+    // The normalized name and every suffix starting at a later word
+    private static List<String> keys(String name) {
+        String normalized = NameIndex.normalize(name);
+        List<String> keys = new ArrayList<>();
+        keys.add(normalized);
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == ' ') {
+                keys.add(normalized.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    private static String misspell(Random random, String word) {
+        StringBuilder text = new StringBuilder(word);
+        for (int e = random.nextInt(3); e > 0 && text.length() > 0; e--) {
+            int at = random.nextInt(text.length());
+            switch (random.nextInt(3)) {
+                case 0: text.deleteCharAt(at); break;
+                case 1: text.insert(at, (char) ('a' + random.nextInt(26))); break;
+                default: text.setCharAt(at, (char) ('a' + random.nextInt(26)));
+            }
+        }
+        return text.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int above = row[j];
+                row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1), diagonal + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+                diagonal = above;
+            }
+        }
+        return row[b.length()];
+    }
+
+    private static Set<Integer> toSet(int[] ids) {
+        Set<Integer> set = new HashSet<>();
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,54 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// RouteCache against the reference Dijkstra while roads and locations change
+// between queries: a cached route must never outlive the graph it was
+// computed on. Repeats without edits must be hits, and a small budget must
+// evict.
+public class RouteCacheTest {
+    public static void main(String[] args) {
+        Random random = new Random(17);
+        for (int round = 0; round < 30; round++) {
+            int n = 2 + random.nextInt(40);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+            SearchStrategy strategy = SearchStrategy.values()[round % 2];
+            long maxWeight = (round % 3 == 0) ? 8 : 100_000;
+            RouteCache cache = new RouteCache(graph, maxWeight, strategy);
+
+            for (int step = 0; step < 200; step++) {
+                int a = idOf(random.nextInt(n));
+                int b = idOf(random.nextInt(n));
+                int action = random.nextInt(10);
+                if (action == 0 && a != b) {
+                    graph.addRoad(a, b, 1 + random.nextInt(30));
+                } else if (action == 1) {
+                    graph.removeRoad(a, b);
+                } else if (action == 2 && graph.containsLocation(a)) {
+                    graph.removeLocation(a);
+                } else if (action == 3 && !graph.containsLocation(a)) {
+                    graph.addLocation(a, "Location again");
+                } else {
+                    Integer expected = graph.containsLocation(a) ? referenceDistances(graph, a).get(b) : null;
+                    checkRoute(graph, cache.findShortestPath(a, b), a, b, expected, "cached " + strategy);
+
+                    // Same query on an unchanged graph is served from the cache
+                    long hits = cache.getHitCount();
+                    checkRoute(graph, cache.findShortestPath(a, b), a, b, expected, "cached repeat");
+                    if (maxWeight > 8) {
+                        check(cache.getHitCount() == hits + 1, "repeated query was not a hit");
+                    }
+                }
+            }
+            check(cache.getHitCount() + cache.getMissCount() > 0, "no lookups counted");
+            if (maxWeight == 8) {
+                check(cache.getEvictionCount() > 0, "small cache never evicted");
+            }
+            cache.clear();
+            check(cache.size() == 0, "cache not empty after clear");
+        }
+        System.out.println("RouteCacheTest passed");
+    }
+}
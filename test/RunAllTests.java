@@ -0,0 +1,31 @@
+package Smart_City_Route;
+
+// Runs every test in this directory; any failure ends the run with an
+// AssertionError naming the broken property
+public class RunAllTests {
+    public static void main(String[] args) throws Exception {
+        GraphAlgorithmsTest.main(args);
+        BidirectionalDijkstraTest.main(args);
+        AStarTest.main(args);
+        ContractionHierarchyTest.main(args);
+        LandmarkIndexTest.main(args);
+        ConcurrentGraphTest.main(args);
+        ConnectivityAnalysisTest.main(args);
+        RouteCacheTest.main(args);
+        TravelTimeProfilesTest.main(args);
+        AVLTreeRankTest.main(args);
+        AVLTreeBulkTest.main(args);
+        SpatialIndexTest.main(args);
+        IsochroneTest.main(args);
+        GraphLoaderTest.main(args);
+        GraphSnapshotFileTest.main(args);
+        MutationLogTest.main(args);
+        DistanceMatrixTest.main(args);
+        BatchRoutingEngineTest.main(args);
+        FrontierBfsTest.main(args);
+        DynamicShortestPathsTest.main(args);
+        BPlusTreeTest.main(args);
+        NameIndexTest.main(args);
+        System.out.println("All tests passed");
+    }
+}
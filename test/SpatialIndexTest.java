@@ -0,0 +1,99 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// SpatialIndex against a scan of every placed location: nearest-k distances,
+// snap and withinRadius. Cities mix placed and unplaced locations and repeat
+// positions, so ties and gaps are exercised. Distances are compared rather
+// than IDs, since equally distant locations may come in either order, and
+// radius checks skip locations within rounding of the boundary.
+public class SpatialIndexTest {
+    private static final double EPSILON = 1e-9;
+
+    public static void main(String[] args) {
+        Random random = new Random(24);
+        for (int round = 0; round < 40; round++) {
+            int n = random.nextInt(round < 20 ? 30 : 2000);
+            GraphCore graph = new GraphCore();
+            List<Integer> placed = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (random.nextInt(5) == 0) {
+                    graph.addLocation(idOf(i), "Unplaced " + i);
+                    continue;
+                }
+                if (!placed.isEmpty() && random.nextInt(10) == 0) {
+                    GraphCore.Coordinates twin = graph.getCoordinates(placed.get(random.nextInt(placed.size())));
+                    graph.addLocation(idOf(i), "Twin " + i, twin.latitude, twin.longitude);
+                } else {
+                    graph.addLocation(idOf(i), "Location " + i,
+                            6.85 + random.nextDouble() * 0.18, 79.80 + random.nextDouble() * 0.18);
+                }
+                placed.add(idOf(i));
+            }
+            SpatialIndex index = graph.freeze().spatialIndex();
+            check(index.size() == placed.size(), "index holds " + index.size() + " of " + placed.size());
+
+            for (int q = 0; q < 30; q++) {
+                // Mostly inside the city, sometimes far away
+                double latitude = (q % 10 == 0) ? -30 + random.nextDouble() * 60 : 6.80 + random.nextDouble() * 0.28;
+                double longitude = (q % 10 == 0) ? random.nextDouble() * 180 : 79.75 + random.nextDouble() * 0.28;
+
+                double[] brute = new double[placed.size()];
+                for (int i = 0; i < brute.length; i++) {
+                    brute[i] = chordKm(graph, latitude, longitude, placed.get(i));
+                    check(Math.abs(index.distanceKm(latitude, longitude, placed.get(i)) - brute[i]) < EPSILON,
+                            "distanceKm disagrees for " + placed.get(i));
+                }
+                double[] sorted = brute.clone();
+                Arrays.sort(sorted);
+
+                int k = random.nextInt(12);
+                int[] nearest = index.nearest(latitude, longitude, k);
+                check(nearest.length == Math.min(k, placed.size()), "nearest returned " + nearest.length);
+                Set<Integer> distinct = new HashSet<>();
+                for (int i = 0; i < nearest.length; i++) {
+                    check(distinct.add(nearest[i]) && placed.contains(nearest[i]), "nearest returned a bad ID");
+                    double distance = chordKm(graph, latitude, longitude, nearest[i]);
+                    check(Math.abs(distance - sorted[i]) < EPSILON,
+                            "nearest #" + i + " is " + distance + " km, expected " + sorted[i]);
+                }
+
+                int snapped = index.snap(latitude, longitude);
+                if (placed.isEmpty()) {
+                    check(snapped == -1, "snap found a location in an empty index");
+                } else {
+                    check(Math.abs(chordKm(graph, latitude, longitude, snapped) - sorted[0]) < EPSILON,
+                            "snap did not pick a nearest location");
+                }
+
+                // Great-circle radius: a chord c is an arc of 2R asin(c / 2R)
+                double radius = random.nextDouble() * 8;
+                Set<Integer> found = new HashSet<>();
+                for (int id : index.withinRadius(latitude, longitude, radius)) {
+                    check(found.add(id), "withinRadius returned " + id + " twice");
+                }
+                for (int i = 0; i < brute.length; i++) {
+                    double arc = 2 * 6371.0088 * Math.asin(brute[i] / (2 * 6371.0088));
+                    if (Math.abs(arc - radius) > 1e-6) {
+                        check(found.contains(placed.get(i)) == (arc <= radius),
+                                "withinRadius disagrees on " + placed.get(i) + " at " + arc + " km of " + radius);
+                    }
+                }
+                for (int id : found) {
+                    check(placed.contains(id), "withinRadius returned unplaced " + id);
+                }
+            }
+            check(Double.isNaN(index.distanceKm(7, 80, 1)), "distance to an unknown ID");
+        }
+        System.out.println("SpatialIndexTest passed");
+    }
+
+    private static double chordKm(GraphCore graph, double latitude, double longitude, int id) {
+        GraphCore.Coordinates location = graph.getCoordinates(id);
+        double[] p = toPoint(latitude, longitude);
+        double[] q = toPoint(location.latitude, location.longitude);
+        return Math.sqrt((p[0] - q[0]) * (p[0] - q[0]) + (p[1] - q[1]) * (p[1] - q[1]) + (p[2] - q[2]) * (p[2] - q[2]));
+    }
+}
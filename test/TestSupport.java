@@ -0,0 +1,198 @@
+package Smart_City_Route;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Shared pieces of the differential tests: seeded random cities and plain
+// reference implementations the optimized code is checked against.
+// The references favour obviously-correct over fast (boxed collections,
+// java.util.PriorityQueue), so the tests keep their cities small.
+final class TestSupport {
+    private TestSupport() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    // ID of the i-th random location; spaced out so IDs never equal dense indices
+    static int idOf(int i) {
+        return i * 3 + 7;
+    }
+
+    // A city of n locations and about m random roads of 1..maxDistance km.
+    // With placed set, every location gets coordinates in a 20 km box around
+    // Colombo and every road is at least as long as the straight line between
+    // its ends, so the A* bound is usable.
+    static GraphCore randomCity(Random random, int n, int m, int maxDistance, boolean placed) {
+        GraphCore graph = new GraphCore();
+        for (int i = 0; i < n; i++) {
+            if (placed) {
+                graph.addLocation(idOf(i), "Location " + i,
+                        6.85 + random.nextDouble() * 0.18, 79.80 + random.nextDouble() * 0.18);
+            } else {
+                graph.addLocation(idOf(i), "Location " + i);
+            }
+        }
+        for (int r = 0; r < m && n > 1; r++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a == b) {
+                continue;
+            }
+            int distance = 1 + random.nextInt(maxDistance);
+            if (placed) {
+                distance += (int) Math.ceil(straightLineKm(graph, idOf(a), idOf(b)));
+            }
+            graph.addRoad(idOf(a), idOf(b), distance);
+        }
+        return graph;
+    }
+
+    // Chord through the earth between two placed locations, in km
+    static double straightLineKm(GraphCore graph, int aId, int bId) {
+        GraphCore.Coordinates a = graph.getCoordinates(aId);
+        GraphCore.Coordinates b = graph.getCoordinates(bId);
+        double[] p = toPoint(a.latitude, a.longitude);
+        double[] q = toPoint(b.latitude, b.longitude);
+        return Math.sqrt((p[0] - q[0]) * (p[0] - q[0]) + (p[1] - q[1]) * (p[1] - q[1]) + (p[2] - q[2]) * (p[2] - q[2]));
+    }
+
+    static double[] toPoint(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double r = 6371.0088;
+        return new double[] {r * Math.cos(lat) * Math.cos(lon), r * Math.cos(lat) * Math.sin(lon), r * Math.sin(lat)};
+    }
+
+    // Plain Dijkstra over GraphCore's own adjacency lists: distance to every
+    // reachable location ID
+    static Map<Integer, Integer> referenceDistances(GraphCore graph, int startId) {
+        Map<Integer, List<GraphCore.Edge>> roads = graph.getAdjacencyList();
+        Map<Integer, Integer> settled = new HashMap<>();
+        if (!roads.containsKey(startId)) {
+            return settled;
+        }
+        PriorityQueue<int[]> queue = new PriorityQueue<>(Comparator.comparingInt((int[] entry) -> entry[1]));
+        queue.add(new int[] {startId, 0});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            if (settled.containsKey(entry[0])) {
+                continue;
+            }
+            settled.put(entry[0], entry[1]);
+            for (GraphCore.Edge edge : roads.get(entry[0])) {
+                if (!settled.containsKey(edge.destination)) {
+                    queue.add(new int[] {edge.destination, entry[1] + edge.distance});
+                }
+            }
+        }
+        return settled;
+    }
+
+    // A found route must run from start to end along existing roads whose
+    // distances add up to its total, and that total must be expected (null
+    // meaning no route should be found)
+    static void checkRoute(GraphCore graph, RouteResult route, int startId, int endId, Integer expected, String what) {
+        if (expected == null) {
+            check(!route.isFound(), what + ": found a route from " + startId + " to " + endId + " that cannot exist");
+            return;
+        }
+        check(route.isFound(), what + ": no route from " + startId + " to " + endId);
+        check(route.getTotalDistance() == expected,
+                what + ": distance " + route.getTotalDistance() + " from " + startId + " to " + endId + ", expected " + expected);
+        int[] path = route.getPath();
+        check(path[0] == startId && path[path.length - 1] == endId, what + ": route has the wrong ends");
+        long total = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            int distance = graph.getRoadDistance(path[i], path[i + 1]);
+            check(distance >= 0, what + ": route uses a missing road " + path[i] + " - " + path[i + 1]);
+            total += distance;
+        }
+        check(total == expected, what + ": route's roads add up to " + total + ", expected " + expected);
+    }
+
+    // Every ordered query of an AVLTree must agree with a TreeMap holding the
+    // same locations: search, size, in-order contents, select/rank and a few
+    // random ranges, ends included
+    static void checkTree(Random random, AVLTree tree, TreeMap<Integer, String> reference) {
+        check(tree.size() == reference.size(), "tree size " + tree.size() + ", expected " + reference.size());
+        List<Integer> ids = new ArrayList<>();
+        tree.inOrder((id, name) -> {
+            check(name.equals(reference.get(id)), "tree has " + id + " as " + name);
+            ids.add(id);
+        });
+        check(ids.equals(new ArrayList<>(reference.keySet())), "tree holds the wrong IDs");
+
+        int k = 0;
+        for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+            check(tree.select(k) == entry.getKey(), "select(" + k + ") is " + tree.select(k));
+            check(tree.rank(entry.getKey()) == k, "rank(" + entry.getKey() + ") is " + tree.rank(entry.getKey()));
+            check(entry.getValue().equals(tree.search(entry.getKey())), "search lost " + entry.getKey());
+            k++;
+        }
+        for (int bad : new int[] {-1, reference.size()}) {
+            try {
+                tree.select(bad);
+                check(false, "select(" + bad + ") did not throw");
+            } catch (IndexOutOfBoundsException expected) {
+                // expected
+            }
+        }
+
+        int spread = reference.isEmpty() ? 10 : reference.lastKey() - reference.firstKey() + 10;
+        int base = reference.isEmpty() ? 0 : reference.firstKey() - 5;
+        for (int q = 0; q < 20; q++) {
+            int low = base + random.nextInt(Math.max(1, spread));
+            int high = (q % 5 == 0) ? low - 1 : low + random.nextInt(Math.max(1, spread));
+            check(tree.rank(low) == reference.headMap(low).size(), "rank(" + low + ") of a missing ID");
+
+            SortedMap<Integer, String> expected = (low > high) ? new TreeMap<>()
+                    : reference.subMap(low, true, high, true);
+            check(tree.countInRange(low, high) == expected.size(), "countInRange(" + low + ", " + high + ")");
+            Iterator<Map.Entry<Integer, String>> it = expected.entrySet().iterator();
+            for (AVLTree.RangeCursor cursor = tree.range(low, high); cursor.next(); ) {
+                check(it.hasNext(), "range(" + low + ", " + high + ") returned too much");
+                Map.Entry<Integer, String> entry = it.next();
+                check(cursor.getLocationId() == entry.getKey() && cursor.getLocationName().equals(entry.getValue()),
+                        "range(" + low + ", " + high + ") returned " + cursor.getLocationId());
+            }
+            check(!it.hasNext(), "range(" + low + ", " + high + ") stopped early");
+        }
+    }
+
+    // Same locations, names, coordinates and roads
+    static void checkSameCity(GraphCore expected, GraphCore actual, String what) {
+        check(actual.getLocations().equals(expected.getLocations()), what + ": locations differ");
+        Map<Integer, List<GraphCore.Edge>> roads = expected.getAdjacencyList();
+        Map<Integer, List<GraphCore.Edge>> actualRoads = actual.getAdjacencyList();
+        for (int id : roads.keySet()) {
+            GraphCore.Coordinates a = expected.getCoordinates(id);
+            GraphCore.Coordinates b = actual.getCoordinates(id);
+            check((a == null) ? b == null : b != null && a.latitude == b.latitude && a.longitude == b.longitude,
+                    what + ": coordinates of " + id + " differ");
+            check(actualRoads.get(id).size() == roads.get(id).size(), what + ": roads of " + id + " differ");
+            for (GraphCore.Edge edge : roads.get(id)) {
+                check(actual.getRoadDistance(id, edge.destination) == edge.distance,
+                        what + ": road " + id + " - " + edge.destination + " differs");
+            }
+        }
+    }
+
+    // Delete a scratch directory and everything in it
+    static void deleteTree(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.forEach(paths::add);
+        }
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
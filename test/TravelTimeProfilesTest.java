@@ -0,0 +1,120 @@
+package Smart_City_Route;
+
+import java.util.*;
+
+import static Smart_City_Route.TestSupport.*;
+
+// TravelTimeProfiles against a plain earliest-arrival search that asks
+// getTravelTime for every road as it is entered. Also checks that stored
+// profiles are FIFO, that equal profiles share one ID, and that without
+// profiles the fastest route is the shortest one.
+public class TravelTimeProfilesTest {
+    public static void main(String[] args) {
+        Random random = new Random(19);
+        for (int round = 0; round < 40; round++) {
+            int n = 1 + random.nextInt(50);
+            GraphCore graph = randomCity(random, n, random.nextInt(3 * n), 30, false);
+            int bucketLength = 1 + random.nextInt(20);
+            int bucketCount = 1 + random.nextInt(12);
+            TravelTimeProfiles profiles = new TravelTimeProfiles(graph.freeze(), bucketLength, bucketCount);
+            int period = profiles.getPeriod();
+
+            // No profiles yet: every road takes its distance
+            for (int q = 0; q < 10; q++) {
+                int startId = idOf(random.nextInt(n));
+                int endId = idOf(random.nextInt(n));
+                checkRoute(graph, profiles.findFastestRoute(startId, endId, random.nextInt(period)),
+                        startId, endId, referenceDistances(graph, startId).get(endId), "fastest without profiles");
+            }
+
+            // A few shared traffic patterns, some of them steep enough to need
+            // FIFO repair, spread over about half the roads
+            int patterns = 1 + random.nextInt(6);
+            int[] ids = new int[patterns];
+            for (int p = 0; p < patterns; p++) {
+                int[] times = new int[bucketCount];
+                for (int b = 0; b < bucketCount; b++) {
+                    times[b] = 1 + random.nextInt(p % 2 == 0 ? 20 : 200);
+                }
+                ids[p] = profiles.addProfile(times);
+                check(profiles.addProfile(times.clone()) == ids[p], "equal profile stored twice");
+            }
+            check(profiles.getProfileCount() <= patterns, "more profiles than patterns");
+
+            Map<Integer, List<GraphCore.Edge>> roads = graph.getAdjacencyList();
+            for (int id : roads.keySet()) {
+                for (GraphCore.Edge edge : roads.get(id)) {
+                    if (id < edge.destination && random.nextBoolean()) {
+                        check(profiles.setProfile(id, edge.destination, ids[random.nextInt(patterns)]),
+                                "setProfile refused an existing road");
+                    }
+                }
+            }
+            check(!profiles.setProfile(idOf(0), 1, ids[0]), "setProfile accepted a missing road");
+
+            // FIFO: entering a road later never gets you off it earlier
+            for (int id : roads.keySet()) {
+                for (GraphCore.Edge edge : roads.get(id)) {
+                    int previous = Integer.MIN_VALUE;
+                    for (int t = -period; t <= period; t++) {
+                        int arrival = t + profiles.getTravelTime(id, edge.destination, t);
+                        check(arrival >= previous, "travel time on " + id + " - " + edge.destination + " is not FIFO");
+                        previous = arrival;
+                    }
+                }
+            }
+
+            for (int q = 0; q < 25; q++) {
+                int startId = idOf(random.nextInt(n));
+                int endId = idOf(random.nextInt(n));
+                int departure = random.nextInt(3 * period) - period;
+                Integer expected = referenceArrival(profiles, roads, startId, departure).get(endId);
+                if (expected != null) {
+                    expected -= departure;
+                }
+                RouteResult route = profiles.findFastestRoute(startId, endId, departure);
+                if (expected == null) {
+                    check(!route.isFound(), "fastest route found where none exists");
+                    continue;
+                }
+                check(route.isFound() && route.getTotalDistance() == expected,
+                        "fastest route takes " + route.getTotalDistance() + ", expected " + expected);
+
+                // Driving the route at the given departure takes its total
+                int[] path = route.getPath();
+                check(path[0] == startId && path[path.length - 1] == endId, "fastest route has the wrong ends");
+                int time = departure;
+                for (int i = 0; i + 1 < path.length; i++) {
+                    int travelTime = profiles.getTravelTime(path[i], path[i + 1], time);
+                    check(travelTime >= 0, "fastest route uses a missing road");
+                    time += travelTime;
+                }
+                check(time - departure == expected, "fastest route's roads take " + (time - departure));
+            }
+        }
+        System.out.println("TravelTimeProfilesTest passed");
+    }
+
+    // Earliest arrival at every reachable location, leaving startId at departure
+    private static Map<Integer, Integer> referenceArrival(TravelTimeProfiles profiles,
+                                                          Map<Integer, List<GraphCore.Edge>> roads,
+                                                          int startId, int departure) {
+        Map<Integer, Integer> settled = new HashMap<>();
+        PriorityQueue<int[]> queue = new PriorityQueue<>(Comparator.comparingInt((int[] entry) -> entry[1]));
+        queue.add(new int[] {startId, departure});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            if (settled.containsKey(entry[0])) {
+                continue;
+            }
+            settled.put(entry[0], entry[1]);
+            for (GraphCore.Edge edge : roads.get(entry[0])) {
+                if (!settled.containsKey(edge.destination)) {
+                    int travelTime = profiles.getTravelTime(entry[0], edge.destination, entry[1]);
+                    queue.add(new int[] {edge.destination, entry[1] + travelTime});
+                }
+            }
+        }
+        return settled;
+    }
+}